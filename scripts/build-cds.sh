@@ -0,0 +1,31 @@
+#!/bin/sh
+# Builds build/spreadsheet.jar and an application class-data-sharing (AppCDS) archive of the
+# classes a script run loads, so that batch runs of SpreadSheetProgram start faster.
+# Requires JDK 13 or later. Run a script with the archive using:
+#   java -XX:SharedArchiveFile=build/spreadsheet.jsa -XX:TieredStopAtLevel=1 \
+#     -jar build/spreadsheet.jar script.txt
+set -e
+cd "$(dirname "$0")/.."
+
+rm -rf build/classes
+mkdir -p build/classes
+javac -d build/classes $(find src -name '*.java')
+jar --create --file build/spreadsheet.jar --main-class spreadsheet.SpreadSheetProgram \
+  -C build/classes .
+
+# a training run that touches every instruction, so their classes end up in the archive
+cat > build/training.txt <<'SCRIPT'
+assign-value A 1 1.5
+bulk-assign A 1 C 3 2
+copy-range A 1 B 2 D 1
+move-range D 1 E 2 F 1
+print-value A 1
+stats
+menu
+unknown-instruction
+quit
+SCRIPT
+java -XX:ArchiveClassesAtExit=build/spreadsheet.jsa -jar build/spreadsheet.jar \
+  build/training.txt > /dev/null
+
+echo "Wrote build/spreadsheet.jar and build/spreadsheet.jsa"
@@ -1,5 +1,7 @@
 package spreadsheet;
 
+import java.util.List;
+
 /**
  * bettersparsespreadsheet.
  */
@@ -39,4 +41,75 @@ public class BetterSparseSpreadSheet extends SparseSpreadSheet implements Better
     }
 
   }
+
+  @Override
+  public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, false);
+  }
+
+  @Override
+  public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, true);
+  }
+
+  //copies or moves the non-empty cells of a block, reading all of them before writing any
+  private void transfer(int sX, int sY, int eX, int eY, int dX, int dY, boolean move)
+      throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if (dX < 0 || dY < 0) {
+      throw new IllegalArgumentException("Destination row or column can't be negative");
+    }
+    if (((long) dX + (eX - sX) > Integer.MAX_VALUE)
+        || ((long) dY + (eY - sY) > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException(
+          "Destination block can't end past the last row or column");
+    }
+
+    List<int[]> positions = this.nonEmptyCells(sX, sY, eX, eY);
+    double[] values = new double[positions.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = this.get(positions.get(i)[0], positions.get(i)[1]);
+    }
+    if (move) {
+      for (int[] position : positions) {
+        this.clear(position[0], position[1]);
+      }
+    }
+    for (int i = 0; i < values.length; i++) {
+      this.set(positions.get(i)[0] - sX + dX, positions.get(i)[1] - sY + dY, values[i]);
+    }
+  }
+
+  @Override
+  public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException {
+    RangeSort.sortRange(this, new RangeSort.StoredCells() {
+      @Override
+      public List<int[]> nonEmptyCells(int sX, int sY, int eX, int eY) {
+        return BetterSparseSpreadSheet.this.nonEmptyCells(sX, sY, eX, eY);
+      }
+
+      @Override
+      public void clear(int row, int col) {
+        BetterSparseSpreadSheet.this.clear(row, col);
+      }
+    }, sX, sY, eX, eY, keyCol, ascending);
+  }
+
+  @Override
+  public int[] topK(int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    return RangeSort.topK(this, sX, eX, col, k, largest);
+  }
 }
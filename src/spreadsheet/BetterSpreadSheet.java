@@ -21,4 +21,88 @@ public interface BetterSpreadSheet extends SpreadSheet {
    */
   void setInBulk(int sX, int sY, int eX, int eY, double value) throws IllegalArgumentException;
 
+  /**
+   * copy the values of a block of cells to another block of the same size. Empty cells in the
+   * source block are skipped, leaving the corresponding destination cells unchanged. The source
+   * and destination blocks may overlap; the result is as if the whole source block was read before
+   * anything was written.
+   *
+   * @param sX the starting x-coordinate of the source block (must be non-negative).
+   * @param sY the starting y-coordinate of the source block (must be non-negative).
+   * @param eX the ending x-coordinate of the source block (must be non-negative and greater than
+   *           or equal to sX).
+   * @param eY the ending y-coordinate of the source block (must be non-negative and greater than
+   *           or equal to sY).
+   * @param dX the starting x-coordinate of the destination block (must be non-negative).
+   * @param dY the starting y-coordinate of the destination block (must be non-negative, and
+   *           dX + (eX - sX) and dY + (eY - sY) must not exceed Integer.MAX_VALUE).
+   * @throws IllegalArgumentException if any coordinate is negative, if eX or eY is less than sX or
+   *                                  sY, or if the destination block would end past
+   *                                  Integer.MAX_VALUE. The sheet is left unchanged.
+   */
+  void copyRange(int sX, int sY, int eX, int eY, int dX, int dY) throws IllegalArgumentException;
+
+  /**
+   * move the values of a block of cells to another block of the same size. This behaves like
+   * {@link #copyRange}, except that every non-empty source cell is emptied before the values are
+   * written to the destination block. Emptying cells does not reduce the width or height of the
+   * sheet.
+   *
+   * @param sX the starting x-coordinate of the source block (must be non-negative).
+   * @param sY the starting y-coordinate of the source block (must be non-negative).
+   * @param eX the ending x-coordinate of the source block (must be non-negative and greater than
+   *           or equal to sX).
+   * @param eY the ending y-coordinate of the source block (must be non-negative and greater than
+   *           or equal to sY).
+   * @param dX the starting x-coordinate of the destination block (must be non-negative).
+   * @param dY the starting y-coordinate of the destination block (must be non-negative, and
+   *           dX + (eX - sX) and dY + (eY - sY) must not exceed Integer.MAX_VALUE).
+   * @throws IllegalArgumentException if any coordinate is negative, if eX or eY is less than sX or
+   *                                  sY, or if the destination block would end past
+   *                                  Integer.MAX_VALUE. The sheet is left unchanged.
+   */
+  void moveRange(int sX, int sY, int eX, int eY, int dX, int dY) throws IllegalArgumentException;
+
+  /**
+   * sort the rows of a block of cells by the values in one of its columns. Whole rows of the block
+   * move together, and rows with equal keys keep their relative order. Rows whose key cell is empty
+   * are placed after all other rows, and empty cells move with their rows.
+   *
+   * @param sX        the starting x-coordinate of the block (must be non-negative).
+   * @param sY        the starting y-coordinate of the block (must be non-negative).
+   * @param eX        the ending x-coordinate of the block (must be non-negative and greater than or
+   *                  equal to sX).
+   * @param eY        the ending y-coordinate of the block (must be non-negative and greater than or
+   *                  equal to sY).
+   * @param keyCol    the column to sort by (must be at least sY and less than eY).
+   * @param ascending true to sort in ascending order, false for descending order.
+   * @throws IllegalArgumentException if any coordinate is negative, if eX or eY is less than sX or
+   *                                  sY, or if the key column is outside the block.
+   */
+  void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException;
+
+  /**
+   * find the rows holding the k largest or smallest values in part of a column. Empty cells are
+   * ignored.
+   *
+   * @param sX      the starting row (must be non-negative).
+   * @param eX      the ending row (must be non-negative and greater than or equal to sX).
+   * @param col     the column to rank the rows by (must be non-negative).
+   * @param k       the number of rows to return (must be non-negative).
+   * @param largest true for the rows with the largest values, false for the smallest.
+   * @return the row numbers, best first, with ties listed from the top down. Fewer than k rows are
+   *         returned if fewer than k cells in the range are non-empty.
+   * @throws IllegalArgumentException if any argument is negative, or if eX is less than sX.
+   */
+  int[] topK(int sX, int eX, int col, int k, boolean largest) throws IllegalArgumentException;
+
+  /**
+   * estimate the memory used by this spreadsheet.
+   *
+   * @return the number of cells stored and the bytes used by their keys, values and the
+   *         surrounding structure
+   */
+  Footprint getFootprint();
+
 }
@@ -1,18 +1,27 @@
 package spreadsheet;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 /**
  * A class that represents a BetterSpreadSheet that assigns a single value to a rectangular block of
  * cells in a spreadsheet.
+ * Cells are stored under physical row and column numbers, which are translated from the row and
+ * column numbers seen by clients through an {@link IndexMap}. This allows rows and columns to be
+ * inserted and deleted without rewriting the position of every cell that follows them.
  */
 public class BetterSpreadSheetImpl implements BetterSpreadSheet {
 
   private final Map<CellPosition, Double> sheet;
+  private final IndexMap rows;
+  private final IndexMap columns;
   private int width;
   private int height;
+  private int peakCells;
 
   /**
    * Constructs a new Better SpreadSheet object with the specified row, column, and value.
@@ -20,8 +29,11 @@ public class BetterSpreadSheetImpl implements BetterSpreadSheet {
 
   public BetterSpreadSheetImpl() {
     this.sheet = new HashMap<CellPosition, Double>();
+    this.rows = new IndexMap();
+    this.columns = new IndexMap();
     this.width = 0;
     this.height = 0;
+    this.peakCells = 0;
   }
 
   @Override
@@ -46,12 +58,218 @@ public class BetterSpreadSheetImpl implements BetterSpreadSheet {
 
   }
 
+  @Override
+  public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, false);
+  }
+
+  @Override
+  public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, true);
+  }
+
+  //copies or moves the non-empty cells of a block, reading all of them before writing any
+  private void transfer(int sX, int sY, int eX, int eY, int dX, int dY, boolean move)
+      throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if (dX < 0 || dY < 0) {
+      throw new IllegalArgumentException("Destination row or column can't be negative");
+    }
+    if (((long) dX + (eX - sX) > Integer.MAX_VALUE)
+        || ((long) dY + (eY - sY) > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException(
+          "Destination block can't end past the last row or column");
+    }
+    //rows and columns past the extent of the sheet are empty
+    int endRow = Math.min(eX, this.height);
+    int endCol = Math.min(eY, this.width);
+    if ((endRow <= sX) || (endCol <= sY)) {
+      return;
+    }
+
+    List<int[]> positions = this.nonEmptyCells(sX, sY, endRow, endCol);
+    double[] values = new double[positions.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = this.get(positions.get(i)[0], positions.get(i)[1]);
+    }
+    if (move) {
+      for (int[] position : positions) {
+        this.sheet.remove(this.position(position[0], position[1]));
+      }
+    }
+    for (int i = 0; i < values.length; i++) {
+      int[] position = positions.get(i);
+      this.set(position[0] - sX + dX, position[1] - sY + dY, values[i]);
+    }
+  }
+
+  //returns the logical {row, column} of every non-empty cell in the block [sX, eX) x [sY, eY),
+  //visiting whichever is smaller: the cells of the block, or the non-empty cells of the sheet
+  private List<int[]> nonEmptyCells(int sX, int sY, int eX, int eY) {
+    List<int[]> result = new ArrayList<int[]>();
+    if ((long) (eX - sX) * (eY - sY) <= this.sheet.size()) {
+      for (int r = sX; r < eX; r++) {
+        for (int c = sY; c < eY; c++) {
+          if (this.sheet.containsKey(this.position(r, c))) {
+            result.add(new int[]{r, c});
+          }
+        }
+      }
+    } else {
+      IndexMap.Inverse logicalRows = this.rows.inverse();
+      IndexMap.Inverse logicalColumns = this.columns.inverse();
+      for (CellPosition position : this.sheet.keySet()) {
+        int r = logicalRows.toLogical(position.row);
+        int c = logicalColumns.toLogical(position.column);
+        if ((r >= sX) && (r < eX) && (c >= sY) && (c < eY)) {
+          result.add(new int[]{r, c});
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException {
+    RangeSort.sortRange(this, new RangeSort.StoredCells() {
+      @Override
+      public List<int[]> nonEmptyCells(int sX, int sY, int eX, int eY) {
+        return BetterSpreadSheetImpl.this.nonEmptyCells(sX, sY, eX, eY);
+      }
+
+      @Override
+      public void clear(int row, int col) {
+        sheet.remove(position(row, col));
+      }
+    }, sX, sY, eX, eY, keyCol, ascending);
+  }
+
+  @Override
+  public int[] topK(int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    return RangeSort.topK(this, sX, eX, col, k, largest);
+  }
+
+  /**
+   * Insert an empty row before the given row, moving it and every row below it down by one. Only
+   * the row index is updated, so this does not depend on the number of cells in the sheet.
+   *
+   * @param row the row number of the new row, starting with 0
+   * @throws IllegalArgumentException if the row is negative
+   */
+  public void insertRow(int row) throws IllegalArgumentException {
+    if (row < 0) {
+      throw new IllegalArgumentException("Row cannot be negative");
+    }
+    this.rows.insert(row);
+    if (row < this.height) {
+      this.height++;
+    }
+  }
+
+  /**
+   * Delete the given row, moving every row below it up by one. Apart from updating the row index,
+   * this only visits the cells of the deleted row.
+   *
+   * @param row the row number of the row to delete, starting with 0
+   * @throws IllegalArgumentException if the row is negative
+   */
+  public void deleteRow(int row) throws IllegalArgumentException {
+    if (row < 0) {
+      throw new IllegalArgumentException("Row cannot be negative");
+    }
+    int physical = this.rows.delete(row);
+    if (row < this.height) {
+      this.removeLine(physical, true);
+      this.height--;
+    }
+  }
+
+  /**
+   * Insert an empty column before the given column, moving it and every column to its right by
+   * one. Only the column index is updated, so this does not depend on the number of cells in the
+   * sheet.
+   *
+   * @param col the column number of the new column, starting with 0
+   * @throws IllegalArgumentException if the column is negative
+   */
+  public void insertColumn(int col) throws IllegalArgumentException {
+    if (col < 0) {
+      throw new IllegalArgumentException("Column cannot be negative");
+    }
+    this.columns.insert(col);
+    if (col < this.width) {
+      this.width++;
+    }
+  }
+
+  /**
+   * Delete the given column, moving every column to its right back by one. Apart from updating the
+   * column index, this only visits the cells of the deleted column.
+   *
+   * @param col the column number of the column to delete, starting with 0
+   * @throws IllegalArgumentException if the column is negative
+   */
+  public void deleteColumn(int col) throws IllegalArgumentException {
+    if (col < 0) {
+      throw new IllegalArgumentException("Column cannot be negative");
+    }
+    int physical = this.columns.delete(col);
+    if (col < this.width) {
+      this.removeLine(physical, false);
+      this.width--;
+    }
+  }
+
+  @Override
+  public Footprint getFootprint() {
+    return Footprint.ofHashSheet(this.sheet.size(), this.peakCells,
+        Footprint.object(3 * Footprint.REFERENCE + 3 * 4) + this.rows.getBytes()
+            + this.columns.getBytes());
+  }
+
+  //removes every cell stored in the given physical row or column
+  private void removeLine(int physical, boolean isRow) {
+    int length = isRow ? this.width : this.height;
+    if (length <= this.sheet.size()) {
+      for (int i = 0; i < length; i++) {
+        this.sheet.remove(isRow ? new CellPosition(physical, this.columns.toPhysical(i))
+            : new CellPosition(this.rows.toPhysical(i), physical));
+      }
+    } else {
+      Iterator<CellPosition> positions = this.sheet.keySet().iterator();
+      while (positions.hasNext()) {
+        CellPosition position = positions.next();
+        if ((isRow ? position.row : position.column) == physical) {
+          positions.remove();
+        }
+      }
+    }
+  }
+
+  //returns the key under which the cell at the given logical row and column is stored
+  private CellPosition position(int row, int col) {
+    return new CellPosition(this.rows.toPhysical(row), this.columns.toPhysical(col));
+  }
+
   @Override
   public double get(int row, int col) throws IllegalArgumentException {
     if ((row < 0) || (col < 0)) {
       throw new IllegalArgumentException("Row or column cannot be negative");
     }
-    return this.sheet.getOrDefault(new CellPosition(row, col), 0.0);
+    return this.sheet.getOrDefault(this.position(row, col), 0.0);
   }
 
   @Override
@@ -59,7 +277,8 @@ public class BetterSpreadSheetImpl implements BetterSpreadSheet {
     if ((row < 0) || (col < 0)) {
       throw new IllegalArgumentException("Row or column cannot be negative");
     }
-    this.sheet.put(new CellPosition(row, col), value);
+    this.sheet.put(this.position(row, col), value);
+    this.peakCells = Math.max(this.peakCells, this.sheet.size());
     if ((row + 1) > height) {
       height = row + 1;
     }
@@ -74,7 +293,7 @@ public class BetterSpreadSheetImpl implements BetterSpreadSheet {
     if ((row < 0) || (col < 0)) {
       throw new IllegalArgumentException("Row or column cannot be negative");
     }
-    return !this.sheet.containsKey(new CellPosition(row, col));
+    return !this.sheet.containsKey(this.position(row, col));
   }
 
   @Override
@@ -0,0 +1,289 @@
+package spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents a bounded log of the changes made to a spreadsheet. Changes are kept in a
+ * ring buffer of fixed capacity: recording a change never allocates more than the event itself and
+ * never waits for readers. When the buffer is full the oldest change is overwritten, and readers
+ * that fall that far behind are told how many changes they missed.
+ * Readers tail the log through a {@link Cursor}, which remembers the sequence number of the next
+ * change to read, so that a reader may resume from any offset still held in the buffer.
+ * Changes must be recorded by a single thread, but cursors may be polled from other threads, one
+ * thread per cursor. A change is published by advancing the next sequence number only after its
+ * slot has been written, and a cursor checks the sequence number of every change it reads, so a
+ * slot the writer has already reused is counted as missed instead of being returned.
+ */
+public class ChangeLog {
+
+  private final SheetChange[] buffer;
+  private volatile long nextSequence;
+
+  /**
+   * Constructs a new empty change log that retains at most the given number of changes.
+   * @param capacity the number of most recent changes to retain
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public ChangeLog(int capacity) throws IllegalArgumentException {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.buffer = new SheetChange[capacity];
+    this.nextSequence = 0;
+  }
+
+  /**
+   * Record the assignment of a single cell.
+   * @param row the row of the cell, starting with 0
+   * @param col the column of the cell, starting with 0
+   * @param value the value assigned
+   * @return the sequence number of the recorded change
+   */
+  public long recordCell(int row, int col, double value) {
+    return record(SheetChange.Kind.CELL, row, col, row + 1, col + 1, row, col, value);
+  }
+
+  /**
+   * Record the assignment of one value to the block [sX, eX) x [sY, eY).
+   * @param sX the starting row of the block
+   * @param sY the starting column of the block
+   * @param eX the ending row of the block (exclusive)
+   * @param eY the ending column of the block (exclusive)
+   * @param value the value assigned
+   * @return the sequence number of the recorded change
+   */
+  public long recordRange(int sX, int sY, int eX, int eY, double value) {
+    return record(SheetChange.Kind.RANGE, sX, sY, eX, eY, sX, sY, value);
+  }
+
+  /**
+   * Record the copy of the block [sX, eX) x [sY, eY) to the block starting at (dX, dY).
+   * @param sX the starting row of the source block
+   * @param sY the starting column of the source block
+   * @param eX the ending row of the source block (exclusive)
+   * @param eY the ending column of the source block (exclusive)
+   * @param dX the starting row of the destination block
+   * @param dY the starting column of the destination block
+   * @return the sequence number of the recorded change
+   */
+  public long recordCopy(int sX, int sY, int eX, int eY, int dX, int dY) {
+    return record(SheetChange.Kind.COPY, sX, sY, eX, eY, dX, dY, 0.0);
+  }
+
+  /**
+   * Record the move of the block [sX, eX) x [sY, eY) to the block starting at (dX, dY).
+   * @param sX the starting row of the source block
+   * @param sY the starting column of the source block
+   * @param eX the ending row of the source block (exclusive)
+   * @param eY the ending column of the source block (exclusive)
+   * @param dX the starting row of the destination block
+   * @param dY the starting column of the destination block
+   * @return the sequence number of the recorded change
+   */
+  public long recordMove(int sX, int sY, int eX, int eY, int dX, int dY) {
+    return record(SheetChange.Kind.MOVE, sX, sY, eX, eY, dX, dY, 0.0);
+  }
+
+  /**
+   * Record the sort of the rows of the block [sX, eX) x [sY, eY) by one of its columns.
+   * @param sX the starting row of the block
+   * @param sY the starting column of the block
+   * @param eX the ending row of the block (exclusive)
+   * @param eY the ending column of the block (exclusive)
+   * @param keyCol the column the rows were sorted by
+   * @param ascending true if the rows were sorted in ascending order
+   * @return the sequence number of the recorded change
+   */
+  public long recordSort(int sX, int sY, int eX, int eY, int keyCol, boolean ascending) {
+    return record(ascending ? SheetChange.Kind.SORT_ASCENDING : SheetChange.Kind.SORT_DESCENDING,
+        sX, sY, eX, eY, sX, keyCol, 0.0);
+  }
+
+  private long record(SheetChange.Kind kind, int sX, int sY, int eX, int eY, int dX, int dY,
+      double value) {
+    long sequence = this.nextSequence;
+    this.buffer[(int) (sequence % this.buffer.length)] =
+        new SheetChange(sequence, kind, sX, sY, eX, eY, dX, dY, value);
+    //publish the change only once its slot is written
+    this.nextSequence = sequence + 1;
+    return sequence;
+  }
+
+  /**
+   * Return the sequence number of the oldest change still held in this log.
+   * @return the oldest sequence number that can still be read
+   */
+  public long getFirstSequence() {
+    return Math.max(0, this.nextSequence - this.buffer.length);
+  }
+
+  /**
+   * Return the sequence number that the next recorded change will get.
+   * @return the next sequence number
+   */
+  public long getNextSequence() {
+    return this.nextSequence;
+  }
+
+  /**
+   * Return the maximum number of changes held by this log.
+   * @return the capacity of this log
+   */
+  public int getCapacity() {
+    return this.buffer.length;
+  }
+
+  /**
+   * Estimate the memory used by this log and the changes it holds.
+   * @return the estimated number of bytes
+   */
+  public long getBytes() {
+    long change = Footprint.object(8 + Footprint.REFERENCE + 6 * 4 + 8);
+    long held = this.nextSequence - getFirstSequence();
+    return Footprint.object(Footprint.REFERENCE + 8)
+        + Footprint.array(Footprint.REFERENCE, this.buffer.length) + held * change;
+  }
+
+  /**
+   * Start reading this log from the given sequence number.
+   * @param fromSequence the sequence number of the first change to read
+   * @return a cursor positioned at the given sequence number
+   * @throws IllegalArgumentException if the sequence number is negative or has not been recorded
+   *                                  yet
+   */
+  public Cursor subscribe(long fromSequence) throws IllegalArgumentException {
+    if ((fromSequence < 0) || (fromSequence > this.nextSequence)) {
+      throw new IllegalArgumentException("Sequence number out of range");
+    }
+    return new Cursor(fromSequence);
+  }
+
+  /**
+   * Start reading only the changes recorded from now on.
+   * @return a cursor positioned at the end of this log
+   */
+  public Cursor subscribe() {
+    return new Cursor(this.nextSequence);
+  }
+
+  /**
+   * This class represents the reading position of one subscriber in a {@link ChangeLog}.
+   */
+  public final class Cursor {
+
+    private long position;
+    private long missed;
+
+    private Cursor(long position) {
+      this.position = position;
+      this.missed = 0;
+    }
+
+    /**
+     * Return the sequence number of the next change this cursor will read. Storing this number
+     * allows a subscriber to resume later using {@link ChangeLog#subscribe(long)}.
+     * @return the sequence number of the next change to read
+     */
+    public long getPosition() {
+      return this.position;
+    }
+
+    /**
+     * Return the total number of changes that were overwritten before this cursor could read them.
+     * @return the number of changes missed by this cursor
+     */
+    public long getMissed() {
+      return this.missed;
+    }
+
+    /**
+     * Read up to the given number of changes, in the order they were recorded.
+     * @param max the maximum number of changes to read
+     * @return the changes read, possibly none
+     * @throws IllegalArgumentException if max is negative
+     */
+    public List<SheetChange> poll(int max) throws IllegalArgumentException {
+      if (max < 0) {
+        throw new IllegalArgumentException("Maximum number of changes can't be negative");
+      }
+      long next = nextSequence;
+      List<SheetChange> result = new ArrayList<SheetChange>(
+          (int) Math.min(max, Math.min(buffer.length, next - this.position)));
+      while (result.size() < max) {
+        long first = Math.max(0, next - buffer.length);
+        if (this.position < first) {
+          this.missed += first - this.position;
+          this.position = first;
+        }
+        if (this.position >= next) {
+          break;
+        }
+        SheetChange change = buffer[(int) (this.position % buffer.length)];
+        if (change.getSequence() != this.position) {
+          //the writer reused this slot after next was read, so look again at how far it got
+          next = nextSequence;
+          continue;
+        }
+        result.add(change);
+        this.position++;
+      }
+      return result;
+    }
+
+    /**
+     * Read up to the given number of changes like {@link #poll(int)}, but drop every change that
+     * is completely overwritten by a later change in the same batch. This allows a subscriber to
+     * catch up on a burst of writes by applying only their net effect. Changes are never dropped
+     * across a copy, move or sort, because it may read the cells they wrote.
+     * @param max the maximum number of changes to read
+     * @return the changes that survive coalescing, in the order they were recorded
+     * @throws IllegalArgumentException if max is negative
+     */
+    public List<SheetChange> pollCoalesced(int max) throws IllegalArgumentException {
+      List<SheetChange> batch = poll(max);
+      List<SheetChange> kept = new ArrayList<SheetChange>(batch.size());
+      List<SheetChange> ranges = new ArrayList<SheetChange>();
+      Set<Long> cells = new HashSet<Long>();
+      for (int i = batch.size() - 1; i >= 0; i--) {
+        SheetChange change = batch.get(i);
+        if (!isCovered(change, cells, ranges)) {
+          kept.add(change);
+        }
+        if (!change.isAssignment()) {
+          cells.clear();
+          ranges.clear();
+        } else if (change.getKind() == SheetChange.Kind.CELL) {
+          cells.add(cellKey(change.getStartRow(), change.getStartCol()));
+        } else {
+          ranges.add(change);
+        }
+      }
+      Collections.reverse(kept);
+      return kept;
+    }
+
+    private boolean isCovered(SheetChange change, Set<Long> cells, List<SheetChange> ranges) {
+      if (!change.isAssignment()) {
+        return false;
+      }
+      if ((change.getKind() == SheetChange.Kind.CELL)
+          && cells.contains(cellKey(change.getStartRow(), change.getStartCol()))) {
+        return true;
+      }
+      for (SheetChange later : ranges) {
+        if (later.covers(change)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private long cellKey(int row, int col) {
+      return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+  }
+}
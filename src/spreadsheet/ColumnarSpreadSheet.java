@@ -0,0 +1,774 @@
+package spreadsheet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A BetterSpreadSheet that stores its cells column by column in compressed form. It is meant for
+ * sheets whose columns contain long runs of identical or slowly varying values, such as the ones
+ * produced by {@link #setInBulk}, where it uses a small fraction of the memory of a hash map.
+ * Each column is split into blocks of {@value #BLOCK_SIZE} rows. Blocks are grouped into pages of
+ * {@value #PAGE_SIZE} consecutive blocks of one column, and a hash map from column and page number
+ * to page serves as the index for random access, so memory grows only with the blocks that hold
+ * cells, however far apart their rows and columns are. A block holds a bitmap of its non-empty
+ * cells and its values as a stream of runs: each run is a length followed by its value,
+ * XOR-encoded against the value of the previous run in the style of the Gorilla time series
+ * format, so that equal neighbours cost one bit and close neighbours only their differing
+ * mantissa bits.
+ * Blocks are decompressed lazily when a cell in them is read or written, and a small number of
+ * decompressed blocks is cached so that sequential scans of a column decode every block only
+ * once. Modified blocks are compressed again when they leave the cache or when {@link #compact()}
+ * is called.
+ */
+public class ColumnarSpreadSheet implements BetterSpreadSheet {
+
+  static final int BLOCK_SIZE = 256;
+  static final int PAGE_SIZE = 64;
+  private static final int BLOCK_SHIFT = 8;
+  private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+  private static final int RUN_LENGTH_BITS = 8;
+  private static final int DEFAULT_CACHED_BLOCKS = 64;
+  private static final int PAGE_SHIFT = 6;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private final Map<Long, EncodedBlock[]> pages;
+  private final Map<Long, DecodedBlock> cache;
+  private long lastKey;
+  private DecodedBlock lastBlock;
+  private int width;
+  private int height;
+  //the largest sizes the page map and the cache ever reached, which size their tables
+  private int peakPages;
+  private int peakCached;
+
+  /**
+   * Constructs a new empty columnar spreadsheet.
+   */
+  public ColumnarSpreadSheet() {
+    this(DEFAULT_CACHED_BLOCKS);
+  }
+
+  /**
+   * Constructs a new empty columnar spreadsheet that keeps at most the given number of blocks
+   * decompressed at any time.
+   * @param cachedBlocks the number of decompressed blocks to keep
+   * @throws IllegalArgumentException if cachedBlocks is not positive
+   */
+  public ColumnarSpreadSheet(final int cachedBlocks) throws IllegalArgumentException {
+    if (cachedBlocks <= 0) {
+      throw new IllegalArgumentException("Number of cached blocks must be positive");
+    }
+    this.pages = new HashMap<Long, EncodedBlock[]>();
+    this.cache = new LinkedHashMap<Long, DecodedBlock>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, DecodedBlock> eldest) {
+        if (size() > cachedBlocks) {
+          writeBack(eldest.getKey(), eldest.getValue());
+          if (lastBlock == eldest.getValue()) {
+            lastBlock = null;
+          }
+          return true;
+        }
+        return false;
+      }
+    };
+    this.lastBlock = null;
+    this.width = 0;
+    this.height = 0;
+    this.peakPages = 0;
+    this.peakCached = 0;
+  }
+
+  @Override
+  public void setInBulk(int sX, int sY, int eX, int eY, double value)
+      throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if ((eX == sX) || (eY == sY)) {
+      return;
+    }
+
+    EncodedBlock full = EncodedBlock.constant(value);
+    for (int c = sY; c < eY; c++) {
+      int r = sX;
+      while (r < eX) {
+        int blockEnd = nextBlockStart(r);
+        if ((blockEnd - r == BLOCK_SIZE) && (blockEnd <= eX)) {
+          //the whole block is overwritten, so there is no need to decompress it
+          long key = key(c, r >> BLOCK_SHIFT);
+          this.cache.remove(key);
+          if ((this.lastBlock != null) && (this.lastKey == key)) {
+            this.lastBlock = null;
+          }
+          store(c, r >> BLOCK_SHIFT, full);
+          r = blockEnd;
+        } else {
+          int end = Math.min(blockEnd, eX);
+          DecodedBlock block = decoded(c, r >> BLOCK_SHIFT);
+          for (; r < end; r++) {
+            block.set(r & BLOCK_MASK, value);
+          }
+        }
+      }
+    }
+    this.height = Math.max(this.height, eX);
+    this.width = Math.max(this.width, eY);
+  }
+
+  @Override
+  public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, false);
+  }
+
+  @Override
+  public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    transfer(sX, sY, eX, eY, dX, dY, true);
+  }
+
+  //copies or moves the non-empty cells of a block, reading all of them before writing any
+  private void transfer(int sX, int sY, int eX, int eY, int dX, int dY, boolean move)
+      throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if (dX < 0 || dY < 0) {
+      throw new IllegalArgumentException("Destination row or column can't be negative");
+    }
+    if (((long) dX + (eX - sX) > Integer.MAX_VALUE)
+        || ((long) dY + (eY - sY) > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException(
+          "Destination block can't end past the last row or column");
+    }
+    int endRow = Math.min(eX, this.height);
+    int endCol = Math.min(eY, this.width);
+    if ((endRow <= sX) || (endCol <= sY)) {
+      return;
+    }
+
+    //read every source column into a flat slice; columns without any cell stay null
+    int rows = endRow - sX;
+    double[][] values = new double[endCol - sY][];
+    boolean[][] present = new boolean[endCol - sY][];
+    for (int c = sY; c < endCol; c++) {
+      double[] columnValues = new double[rows];
+      boolean[] columnPresent = new boolean[rows];
+      if (readColumn(c, sX, endRow, columnValues, columnPresent)) {
+        values[c - sY] = columnValues;
+        present[c - sY] = columnPresent;
+      }
+    }
+
+    if (move) {
+      for (int c = sY; c < endCol; c++) {
+        for (int r = sX; (present[c - sY] != null) && (r < endRow); r++) {
+          if (present[c - sY][r - sX]) {
+            decoded(c, r >> BLOCK_SHIFT).clear(r & BLOCK_MASK);
+          }
+        }
+      }
+    }
+
+    for (int c = 0; c < values.length; c++) {
+      if (values[c] == null) {
+        continue;
+      }
+      int col = dY + c;
+      for (int r = dX; r < dX + rows; r = nextBlockStart(r)) {
+        int length = Math.min(nextBlockStart(r), dX + rows) - r;
+        int from = r - dX;
+        int count = 0;
+        int last = 0;
+        for (int i = from; i < from + length; i++) {
+          if (present[c][i]) {
+            count++;
+            last = i;
+          }
+        }
+        if (count == 0) {
+          continue;
+        }
+        DecodedBlock block = decoded(col, r >> BLOCK_SHIFT);
+        if (count == length) {
+          block.setAll(r & BLOCK_MASK, values[c], from, length);
+        } else {
+          for (int i = 0; i < length; i++) {
+            if (present[c][from + i]) {
+              block.set((r & BLOCK_MASK) + i, values[c][from + i]);
+            }
+          }
+        }
+        this.height = Math.max(this.height, dX + last + 1);
+        this.width = Math.max(this.width, col + 1);
+      }
+    }
+  }
+
+  //copies the rows [sX, endRow) of a column into the given arrays, returning false if none of
+  //the blocks they fall in has any non-empty cell
+  private boolean readColumn(int col, int sX, int endRow, double[] values, boolean[] present) {
+    boolean any = false;
+    for (int r = sX; r < endRow; r = nextBlockStart(r)) {
+      DecodedBlock block = existing(col, r >> BLOCK_SHIFT);
+      if (block == null) {
+        continue;
+      }
+      any = true;
+      int length = Math.min(nextBlockStart(r), endRow) - r;
+      System.arraycopy(block.values, r & BLOCK_MASK, values, r - sX, length);
+      for (int i = 0; i < length; i++) {
+        present[r - sX + i] = block.isPresent((r & BLOCK_MASK) + i);
+      }
+    }
+    return any;
+  }
+
+  @Override
+  public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if (keyCol < sY || keyCol >= eY) {
+      throw new IllegalArgumentException("Key column must be inside the range");
+    }
+    //rows and columns past the extent of the sheet are empty and stay where they are
+    int endRow = Math.min(eX, this.height);
+    int endCol = Math.min(eY, this.width);
+    if ((endRow <= sX) || (keyCol >= endCol)) {
+      return;
+    }
+
+    int rows = endRow - sX;
+    double[] keys = new double[rows];
+    boolean[] keyPresent = new boolean[rows];
+    if (!readColumn(keyCol, sX, endRow, keys, keyPresent)) {
+      return;
+    }
+    int[] order = RangeSort.sortOrder(keys, keyPresent, ascending);
+
+    //permute one column at a time, so that only one column of the range is held decompressed
+    double[] values = new double[rows];
+    boolean[] present = new boolean[rows];
+    for (int c = sY; c < endCol; c++) {
+      Arrays.fill(present, false);
+      if (!readColumn(c, sX, endRow, values, present)) {
+        continue;
+      }
+      for (int r = 0; r < rows; r++) {
+        int from = order[r];
+        if (from == r) {
+          continue;
+        }
+        if (present[from]) {
+          decoded(c, (sX + r) >> BLOCK_SHIFT).set((sX + r) & BLOCK_MASK, values[from]);
+        } else if (present[r]) {
+          decoded(c, (sX + r) >> BLOCK_SHIFT).clear((sX + r) & BLOCK_MASK);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int[] topK(int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    if (sX < 0 || eX < 0 || col < 0) {
+      throw new IllegalArgumentException("Row or column can't be negative");
+    }
+    if (eX < sX) {
+      throw new IllegalArgumentException("Ending row can't be less than starting row");
+    }
+    if (k < 0) {
+      throw new IllegalArgumentException("Number of rows can't be negative");
+    }
+    int rows = Math.max(0, Math.min(eX, this.height) - sX);
+    double[] keys = new double[rows];
+    boolean[] present = new boolean[rows];
+    if ((col < this.width) && (rows > 0)) {
+      readColumn(col, sX, sX + rows, keys, present);
+    }
+    int[] result = RangeSort.select(keys, present, k, largest);
+    for (int i = 0; i < result.length; i++) {
+      result[i] += sX;
+    }
+    return result;
+  }
+
+  @Override
+  public Footprint getFootprint() {
+    long cells = 0;
+    long keyBytes = 0;
+    long valueBytes = 0;
+    long structureBytes = Footprint.object(3 * Footprint.REFERENCE + 8 + 4 * 4)
+        + Footprint.HASH_MAP
+        + Footprint.array(Footprint.REFERENCE, Footprint.hashCapacity(this.peakPages));
+    long page = Footprint.HASH_NODE + Footprint.object(8)
+        + Footprint.array(Footprint.REFERENCE, PAGE_SIZE);
+    long storedBlocks = 0;
+    long bulkRegions = 0;
+    //setInBulk stores one block in every block it fills, so each block is only charged once
+    Set<EncodedBlock> charged =
+        Collections.newSetFromMap(new IdentityHashMap<EncodedBlock, Boolean>());
+    for (Map.Entry<Long, EncodedBlock[]> entry : this.pages.entrySet()) {
+      int c = (int) (entry.getKey() >>> 32);
+      int first = entry.getKey().intValue() << PAGE_SHIFT;
+      EncodedBlock[] blocks = entry.getValue();
+      structureBytes += page;
+      for (int i = 0; i < blocks.length; i++) {
+        EncodedBlock block = blocks[i];
+        if (block == null) {
+          continue;
+        }
+        if (charged.add(block)) {
+          structureBytes += Footprint.object(2 * Footprint.REFERENCE);
+          valueBytes += Footprint.array(8, block.bits.length);
+          keyBytes += (block.present == null) ? 0 : Footprint.array(8, block.present.length);
+        }
+        if (!this.cache.containsKey(key(c, first + i))) {
+          cells += block.count();
+          storedBlocks++;
+          bulkRegions += block.isSingleRun() ? 1 : 0;
+        }
+      }
+    }
+
+    //decompressed blocks hold the current contents of the blocks they cache
+    structureBytes += Footprint.HASH_MAP + 2 * Footprint.REFERENCE + 4
+        + Footprint.array(Footprint.REFERENCE, Footprint.hashCapacity(this.peakCached));
+    long entry = Footprint.object(4 + 5 * Footprint.REFERENCE) + Footprint.object(8);
+    long decoded = Footprint.object(2 * Footprint.REFERENCE + 1)
+        + Footprint.array(8, BLOCK_SIZE) + Footprint.array(8, BLOCK_SIZE / 64);
+    for (DecodedBlock block : this.cache.values()) {
+      structureBytes += entry + decoded;
+      long count = block.count();
+      cells += count;
+      storedBlocks += (count > 0) ? 1 : 0;
+    }
+    return new Footprint(cells, keyBytes, valueBytes, structureBytes,
+        (storedBlocks == 0) ? 0.0 : (double) cells / (storedBlocks * BLOCK_SIZE), bulkRegions);
+  }
+
+  //returns the first row of the next block, or Integer.MAX_VALUE for the last block
+  private static int nextBlockStart(int row) {
+    return (int) Math.min(Integer.MAX_VALUE, ((long) (row >> BLOCK_SHIFT) + 1) << BLOCK_SHIFT);
+  }
+
+  @Override
+  public double get(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (col < 0)) {
+      throw new IllegalArgumentException("Row or column cannot be negative");
+    }
+    if ((col >= this.width) || (row >= this.height)) {
+      return 0.0;
+    }
+    return decoded(col, row >> BLOCK_SHIFT).values[row & BLOCK_MASK];
+  }
+
+  @Override
+  public void set(int row, int col, double value) throws IllegalArgumentException {
+    if ((row < 0) || (col < 0)) {
+      throw new IllegalArgumentException("Row or column cannot be negative");
+    }
+    decoded(col, row >> BLOCK_SHIFT).set(row & BLOCK_MASK, value);
+    if ((row + 1) > height) {
+      height = row + 1;
+    }
+
+    if ((col + 1) > width) {
+      width = col + 1;
+    }
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (col < 0)) {
+      throw new IllegalArgumentException("Row or column cannot be negative");
+    }
+    if ((col >= this.width) || (row >= this.height)) {
+      return true;
+    }
+    DecodedBlock hot = cached(key(col, row >> BLOCK_SHIFT));
+    if (hot != null) {
+      return !hot.isPresent(row & BLOCK_MASK);
+    }
+    EncodedBlock block = encoded(col, row >> BLOCK_SHIFT);
+    return (block == null) || !block.isPresent(row & BLOCK_MASK);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Compress every decompressed block and release them. Reads and writes after this call
+   * decompress blocks again as needed.
+   */
+  public void compact() {
+    for (Map.Entry<Long, DecodedBlock> entry : this.cache.entrySet()) {
+      writeBack(entry.getKey(), entry.getValue());
+    }
+    this.cache.clear();
+    this.lastBlock = null;
+  }
+
+  private static long key(int col, int block) {
+    return ((long) col << 32) | block;
+  }
+
+  private DecodedBlock cached(long key) {
+    if ((this.lastBlock != null) && (this.lastKey == key)) {
+      return this.lastBlock;
+    }
+    return this.cache.get(key);
+  }
+
+  //returns the decompressed form of a block, decompressing and caching it if necessary
+  private DecodedBlock decoded(int col, int block) {
+    long key = key(col, block);
+    DecodedBlock result = cached(key);
+    if (result == null) {
+      result = new DecodedBlock(encoded(col, block));
+      //the table grows for the new entry before the eldest one is evicted
+      this.peakCached = Math.max(this.peakCached, this.cache.size() + 1);
+      this.cache.put(key, result);
+    }
+    this.lastKey = key;
+    this.lastBlock = result;
+    return result;
+  }
+
+  //returns the decompressed form of a block, or null if the block has no non-empty cells
+  private DecodedBlock existing(int col, int block) {
+    DecodedBlock hot = cached(key(col, block));
+    if ((hot == null) && (encoded(col, block) != null)) {
+      hot = decoded(col, block);
+    }
+    return hot;
+  }
+
+  private EncodedBlock encoded(int col, int block) {
+    EncodedBlock[] page = this.pages.get(key(col, block >> PAGE_SHIFT));
+    return (page == null) ? null : page[block & PAGE_MASK];
+  }
+
+  //stores the compressed form of a block, or removes the block if it is null
+  private void store(int col, int block, EncodedBlock encoded) {
+    long key = key(col, block >> PAGE_SHIFT);
+    EncodedBlock[] page = this.pages.get(key);
+    if (page == null) {
+      if (encoded == null) {
+        return;
+      }
+      page = new EncodedBlock[PAGE_SIZE];
+      this.pages.put(key, page);
+      this.peakPages = Math.max(this.peakPages, this.pages.size());
+    }
+    page[block & PAGE_MASK] = encoded;
+    if (encoded == null) {
+      //drop pages whose blocks are all empty
+      for (EncodedBlock other : page) {
+        if (other != null) {
+          return;
+        }
+      }
+      this.pages.remove(key);
+    }
+  }
+
+  private void writeBack(long key, DecodedBlock block) {
+    if (block.dirty) {
+      store((int) (key >>> 32), (int) key, block.encode());
+      block.dirty = false;
+    }
+  }
+
+  /**
+   * The decompressed form of a block: its values, and a bitmap of the cells that are not empty.
+   */
+  private static class DecodedBlock {
+
+    private final double[] values;
+    private final long[] present;
+    private boolean dirty;
+
+    private DecodedBlock(EncodedBlock encoded) {
+      this.values = new double[BLOCK_SIZE];
+      this.present = new long[BLOCK_SIZE / 64];
+      this.dirty = false;
+      if (encoded != null) {
+        encoded.decodeInto(this.values);
+        if (encoded.present == null) {
+          Arrays.fill(this.present, -1L);
+        } else {
+          System.arraycopy(encoded.present, 0, this.present, 0, this.present.length);
+        }
+      }
+    }
+
+    private boolean isPresent(int index) {
+      return (this.present[index >> 6] & (1L << index)) != 0;
+    }
+
+    private long count() {
+      long count = 0;
+      for (long word : this.present) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    private void set(int index, double value) {
+      this.values[index] = value;
+      this.present[index >> 6] |= 1L << index;
+      this.dirty = true;
+    }
+
+    private void setAll(int index, double[] source, int from, int length) {
+      System.arraycopy(source, from, this.values, index, length);
+      for (int i = index; i < index + length; i++) {
+        this.present[i >> 6] |= 1L << i;
+      }
+      this.dirty = true;
+    }
+
+    private void clear(int index) {
+      this.values[index] = 0.0;
+      this.present[index >> 6] &= ~(1L << index);
+      this.dirty = true;
+    }
+
+    private EncodedBlock encode() {
+      boolean any = false;
+      boolean all = true;
+      for (long word : this.present) {
+        any |= word != 0;
+        all &= word == -1L;
+      }
+      if (!any) {
+        return null;
+      }
+      BitWriter out = new BitWriter();
+      XorEncoder encoder = new XorEncoder();
+      int start = 0;
+      for (int i = 1; i <= BLOCK_SIZE; i++) {
+        if ((i == BLOCK_SIZE)
+            || (Double.doubleToRawLongBits(this.values[i])
+                != Double.doubleToRawLongBits(this.values[start]))) {
+          out.write(i - start - 1, RUN_LENGTH_BITS);
+          encoder.write(out, this.values[start]);
+          start = i;
+        }
+      }
+      return new EncodedBlock(out.toArray(), all ? null : this.present.clone());
+    }
+  }
+
+  /**
+   * The compressed form of a block: a bit stream of runs, and a bitmap of the cells that are not
+   * empty, or null if every cell in the block is non-empty.
+   */
+  private static class EncodedBlock {
+
+    private final long[] bits;
+    private final long[] present;
+
+    private EncodedBlock(long[] bits, long[] present) {
+      this.bits = bits;
+      this.present = present;
+    }
+
+    private static EncodedBlock constant(double value) {
+      BitWriter out = new BitWriter();
+      out.write(BLOCK_SIZE - 1, RUN_LENGTH_BITS);
+      new XorEncoder().write(out, value);
+      return new EncodedBlock(out.toArray(), null);
+    }
+
+    private boolean isPresent(int index) {
+      return (this.present == null) || ((this.present[index >> 6] & (1L << index)) != 0);
+    }
+
+    private long count() {
+      if (this.present == null) {
+        return BLOCK_SIZE;
+      }
+      long count = 0;
+      for (long word : this.present) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    //returns whether every cell of this block is non-empty and holds the same value
+    private boolean isSingleRun() {
+      return (this.present == null)
+          && ((this.bits[0] >>> (64 - RUN_LENGTH_BITS)) == BLOCK_SIZE - 1);
+    }
+
+    private void decodeInto(double[] values) {
+      BitReader in = new BitReader(this.bits);
+      XorDecoder decoder = new XorDecoder();
+      int index = 0;
+      while (index < BLOCK_SIZE) {
+        int length = (int) in.read(RUN_LENGTH_BITS) + 1;
+        double value = decoder.read(in);
+        Arrays.fill(values, index, index + length, value);
+        index += length;
+      }
+    }
+  }
+
+  /**
+   * Writes a sequence of doubles, each XOR-ed with the previous one. A value equal to the previous
+   * one is written as a single 0 bit. Otherwise only the meaningful bits of the XOR are written,
+   * reusing the previous leading/trailing zero window when the new XOR fits inside it.
+   */
+  private static class XorEncoder {
+
+    private long previous = 0;
+    private int leading = -1;
+    private int trailing = 0;
+
+    private void write(BitWriter out, double value) {
+      long bits = Double.doubleToRawLongBits(value);
+      long xor = bits ^ this.previous;
+      this.previous = bits;
+      if (xor == 0) {
+        out.write(0, 1);
+        return;
+      }
+      out.write(1, 1);
+      int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+      int tz = Long.numberOfTrailingZeros(xor);
+      if ((this.leading >= 0) && (lz >= this.leading) && (tz >= this.trailing)) {
+        out.write(0, 1);
+        out.write(xor >>> this.trailing, 64 - this.leading - this.trailing);
+      } else {
+        int meaningful = 64 - lz - tz;
+        out.write(1, 1);
+        out.write(lz, 5);
+        out.write(meaningful - 1, 6);
+        out.write(xor >>> tz, meaningful);
+        this.leading = lz;
+        this.trailing = tz;
+      }
+    }
+  }
+
+  /**
+   * Reads a sequence of doubles written by {@link XorEncoder}.
+   */
+  private static class XorDecoder {
+
+    private long previous = 0;
+    private int leading = 0;
+    private int trailing = 0;
+
+    private double read(BitReader in) {
+      if (in.read(1) != 0) {
+        if (in.read(1) != 0) {
+          this.leading = (int) in.read(5);
+          int meaningful = (int) in.read(6) + 1;
+          this.trailing = 64 - this.leading - meaningful;
+        }
+        this.previous ^= in.read(64 - this.leading - this.trailing) << this.trailing;
+      }
+      return Double.longBitsToDouble(this.previous);
+    }
+  }
+
+  private static class BitWriter {
+
+    private long[] words = new long[2];
+    private int position = 0;
+
+    //writes the lowest count bits of value, most significant first
+    private void write(long value, int count) {
+      if (count == 0) {
+        return;
+      }
+      if (count < 64) {
+        value &= (1L << count) - 1;
+      }
+      int index = this.position >>> 6;
+      int offset = this.position & 63;
+      if (index + 1 >= this.words.length) {
+        this.words = Arrays.copyOf(this.words, this.words.length * 2);
+      }
+      int free = 64 - offset;
+      if (count <= free) {
+        this.words[index] |= value << (free - count);
+      } else {
+        this.words[index] |= value >>> (count - free);
+        this.words[index + 1] |= value << (64 - (count - free));
+      }
+      this.position += count;
+    }
+
+    private long[] toArray() {
+      return Arrays.copyOf(this.words, (this.position + 63) >>> 6);
+    }
+  }
+
+  private static class BitReader {
+
+    private final long[] words;
+    private int position = 0;
+
+    private BitReader(long[] words) {
+      this.words = words;
+    }
+
+    private long read(int count) {
+      if (count == 0) {
+        return 0;
+      }
+      int index = this.position >>> 6;
+      int offset = this.position & 63;
+      int free = 64 - offset;
+      long result;
+      if (count <= free) {
+        result = this.words[index] >>> (free - count);
+      } else {
+        result = (this.words[index] << (count - free))
+            | (this.words[index + 1] >>> (64 - (count - free)));
+      }
+      this.position += count;
+      return (count == 64) ? result : result & ((1L << count) - 1);
+    }
+  }
+}
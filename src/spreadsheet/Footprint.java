@@ -0,0 +1,156 @@
+package spreadsheet;
+
+import java.util.Locale;
+
+/**
+ * This class represents an estimate of the memory used by a spreadsheet, as reported by
+ * {@link BetterSpreadSheet#getFootprint()}. The estimate counts the bytes of every object the
+ * sheet holds, split into the bytes that locate cells (keys), the bytes that hold their values,
+ * and the bytes of the surrounding structure (tables, arrays, indexes and the sheet itself).
+ * Object sizes are computed for a 64-bit JVM with compressed object pointers and class pointers,
+ * which is the default for heaps smaller than 32 GB: 12 byte object headers, 16 byte array headers,
+ * 4 byte references, and every object padded to a multiple of 8 bytes.
+ */
+public final class Footprint {
+
+  static final int OBJECT_HEADER = 12;
+  static final int ARRAY_HEADER = 16;
+  static final int REFERENCE = 4;
+
+  //a HashMap, a HashMap.Node, and the CellPosition and Double it holds
+  static final long HASH_MAP = object(3 * 4 + 4 * REFERENCE + 4);
+  static final long HASH_NODE = object(4 + 3 * REFERENCE);
+  static final long CELL_POSITION = object(2 * 4);
+  static final long BOXED_DOUBLE = object(8);
+
+  private final long cells;
+  private final long keyBytes;
+  private final long valueBytes;
+  private final long structureBytes;
+  private final double loadFactor;
+  private final long bulkRegions;
+
+  Footprint(long cells, long keyBytes, long valueBytes, long structureBytes, double loadFactor,
+      long bulkRegions) {
+    this.cells = cells;
+    this.keyBytes = keyBytes;
+    this.valueBytes = valueBytes;
+    this.structureBytes = structureBytes;
+    this.loadFactor = loadFactor;
+    this.bulkRegions = bulkRegions;
+  }
+
+  /**
+   * Estimate the footprint of a sheet that keeps its cells in a HashMap from CellPosition to
+   * Double, such as SparseSpreadSheet and BetterSpreadSheetImpl.
+   * @param cells the number of entries in the map
+   * @param peakCells the largest number of entries the map ever held; a HashMap never shrinks its
+   *                  table, so the table is sized by this number rather than the current one
+   * @param ownBytes the bytes of the sheet object itself and anything else it holds
+   * @return the estimated footprint
+   */
+  static Footprint ofHashSheet(int cells, int peakCells, long ownBytes) {
+    long capacity = hashCapacity(Math.max(cells, peakCells));
+    return new Footprint(cells, cells * CELL_POSITION, cells * BOXED_DOUBLE,
+        HASH_MAP + array(REFERENCE, capacity) + cells * HASH_NODE + ownBytes,
+        (double) cells / capacity, 0);
+  }
+
+  //the table length of a HashMap that grew to the given size with the default load factor
+  static long hashCapacity(long size) {
+    long capacity = 16;
+    while (size > capacity * 3 / 4) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+
+  //the size of an object with the given number of bytes of fields
+  static long object(long fieldBytes) {
+    return align(OBJECT_HEADER + fieldBytes);
+  }
+
+  //the size of an array with the given element size and length
+  static long array(long elementBytes, long length) {
+    return align(ARRAY_HEADER + elementBytes * length);
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  /**
+   * Return the number of non-empty cells stored.
+   * @return the number of cells
+   */
+  public long getCells() {
+    return this.cells;
+  }
+
+  /**
+   * Return the bytes used to record where cells are.
+   * @return the bytes used by keys
+   */
+  public long getKeyBytes() {
+    return this.keyBytes;
+  }
+
+  /**
+   * Return the bytes used to hold the values of cells.
+   * @return the bytes used by values
+   */
+  public long getValueBytes() {
+    return this.valueBytes;
+  }
+
+  /**
+   * Return the bytes used by tables, arrays, indexes and the sheet objects themselves.
+   * @return the bytes used by structure
+   */
+  public long getStructureBytes() {
+    return this.structureBytes;
+  }
+
+  /**
+   * Return the total estimated bytes.
+   * @return the sum of key, value and structure bytes
+   */
+  public long getTotalBytes() {
+    return this.keyBytes + this.valueBytes + this.structureBytes;
+  }
+
+  /**
+   * Return the fraction of allocated slots that hold a cell: the entries per bucket of a hash
+   * table, or the share of non-empty cells in the stored blocks of a columnar sheet.
+   * @return the load factor
+   */
+  public double getLoadFactor() {
+    return this.loadFactor;
+  }
+
+  /**
+   * Return the number of regions stored as a single value for many cells, such as a block filled
+   * by one bulk assignment in a columnar sheet. Sheets that store every cell separately report 0.
+   * @return the number of bulk regions
+   */
+  public long getBulkRegions() {
+    return this.bulkRegions;
+  }
+
+  /**
+   * Return a footprint that adds the given bytes of structure to this one.
+   * @param bytes the bytes to add
+   * @return the combined footprint
+   */
+  Footprint plusStructure(long bytes) {
+    return new Footprint(this.cells, this.keyBytes, this.valueBytes, this.structureBytes + bytes,
+        this.loadFactor, this.bulkRegions);
+  }
+
+  @Override
+  public String toString() {
+    return "Cells: " + cells + ", Bytes: " + getTotalBytes() + " (keys " + keyBytes
+        + ", values " + valueBytes + ", structure " + structureBytes + "), Load factor: "
+        + String.format(Locale.ROOT, "%.2f", loadFactor) + ", Bulk regions: " + bulkRegions;
+  }
+}
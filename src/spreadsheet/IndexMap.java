@@ -0,0 +1,280 @@
+package spreadsheet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class maps logical row (or column) numbers to the physical numbers under which cells are
+ * stored, so that rows can be inserted and deleted without rewriting the position of every cell
+ * below them.
+ * The mapping is kept as a sequence of segments of consecutive physical numbers, held in an
+ * implicit treap ordered by logical position. Logical positions past the last segment continue
+ * the physical numbering from a tail counter, so a map that was never edited stores nothing and
+ * maps every number to itself. Inserted lines get fresh negative physical numbers, which can never
+ * clash with the non-negative numbers of the original lines. Inserting, deleting and looking up a
+ * line all take time logarithmic in the number of segments.
+ */
+class IndexMap {
+
+  private final Random random;
+  private Node root;
+  private int tail;
+  private int nextFresh;
+
+  IndexMap() {
+    this.random = new Random(0);
+    this.root = null;
+    this.tail = 0;
+    this.nextFresh = -1;
+  }
+
+  /**
+   * Return whether this map still maps every logical number to itself.
+   * @return true if no line was ever inserted or deleted, false otherwise
+   */
+  boolean isIdentity() {
+    return (this.root == null) && (this.tail == 0);
+  }
+
+  /**
+   * Return the number of segments held by this map.
+   * @return the number of segments
+   */
+  int segments() {
+    return count(this.root);
+  }
+
+  /**
+   * Estimate the memory used by this map, including its random number generator.
+   * @return the estimated number of bytes
+   */
+  long getBytes() {
+    long random = Footprint.object(Footprint.REFERENCE + 8 + 1) + Footprint.object(8);
+    long node = Footprint.object(4 * 4 + 2 * Footprint.REFERENCE);
+    return Footprint.object(2 * Footprint.REFERENCE + 2 * 4) + random + segments() * node;
+  }
+
+  /**
+   * Return the physical number of a logical line.
+   * @param logical the logical number, starting with 0
+   * @return the physical number under which the cells of this line are stored
+   */
+  int toPhysical(int logical) {
+    int total = size(this.root);
+    if (logical >= total) {
+      return this.tail + (logical - total);
+    }
+    Node node = this.root;
+    int k = logical;
+    while (true) {
+      int leftSize = size(node.left);
+      if (k < leftSize) {
+        node = node.left;
+      } else if (k < leftSize + node.length) {
+        return node.start + (k - leftSize);
+      } else {
+        k -= leftSize + node.length;
+        node = node.right;
+      }
+    }
+  }
+
+  /**
+   * Return a lookup from physical numbers back to logical numbers. The lookup is a snapshot of the
+   * segments sorted by physical number, so it answers in time logarithmic in the number of
+   * segments, but it must not be used after this map is changed.
+   * @return the inverse of this map
+   */
+  Inverse inverse() {
+    int count = segments();
+    int[] starts = new int[count];
+    int[] lengths = new int[count];
+    int[] logicals = new int[count];
+    collect(this.root, 0, starts, lengths, logicals, 0);
+    //sort the segments by physical start, carrying their index along in the low bits
+    long[] order = new long[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = ((long) starts[i] << 32) | i;
+    }
+    Arrays.sort(order);
+    Inverse inverse = new Inverse(count, this.tail, size(this.root));
+    for (int i = 0; i < count; i++) {
+      int index = (int) order[i];
+      inverse.starts[i] = starts[index];
+      inverse.lengths[i] = lengths[index];
+      inverse.logicals[i] = logicals[index];
+    }
+    return inverse;
+  }
+
+  //stores the segments of a treap in logical order, returning the number of segments stored
+  private static int collect(Node node, int logical, int[] starts, int[] lengths, int[] logicals,
+      int index) {
+    if (node == null) {
+      return index;
+    }
+    index = collect(node.left, logical, starts, lengths, logicals, index);
+    starts[index] = node.start;
+    lengths[index] = node.length;
+    logicals[index] = logical + size(node.left);
+    return collect(node.right, logical + size(node.left) + node.length, starts, lengths,
+        logicals, index + 1);
+  }
+
+  /**
+   * Insert a new empty line before the given logical line, shifting it and every following line
+   * by one.
+   * @param logical the logical number of the new line
+   */
+  void insert(int logical) {
+    cover(logical);
+    Node[] parts = split(this.root, logical);
+    Node fresh = new Node(this.nextFresh--, 1, this.random.nextInt());
+    this.root = merge(merge(parts[0], fresh), parts[1]);
+  }
+
+  /**
+   * Delete the given logical line, shifting every following line back by one.
+   * @param logical the logical number of the line to delete
+   * @return the physical number of the deleted line
+   */
+  int delete(int logical) {
+    cover(logical);
+    if (logical == size(this.root)) {
+      return this.tail++;
+    }
+    Node[] parts = split(this.root, logical);
+    Node[] rest = split(parts[1], 1);
+    this.root = merge(parts[0], rest[1]);
+    return rest[0].start;
+  }
+
+  //make sure the segments cover at least the given number of logical lines
+  private void cover(int logical) {
+    int total = size(this.root);
+    if (logical > total) {
+      this.root = merge(this.root, new Node(this.tail, logical - total, this.random.nextInt()));
+      this.tail += logical - total;
+    }
+  }
+
+  //splits a treap into its first k logical lines and the rest, splitting a segment if needed
+  private Node[] split(Node node, int k) {
+    if (node == null) {
+      return new Node[]{null, null};
+    }
+    int leftSize = size(node.left);
+    if (k <= leftSize) {
+      Node[] parts = split(node.left, k);
+      node.left = parts[1];
+      node.update();
+      return new Node[]{parts[0], node};
+    }
+    if (k >= leftSize + node.length) {
+      Node[] parts = split(node.right, k - leftSize - node.length);
+      node.right = parts[0];
+      node.update();
+      return new Node[]{node, parts[1]};
+    }
+    int inside = k - leftSize;
+    Node second = new Node(node.start + inside, node.length - inside, node.priority);
+    second.right = node.right;
+    second.update();
+    node.length = inside;
+    node.right = null;
+    node.update();
+    return new Node[]{node, second};
+  }
+
+  private Node merge(Node a, Node b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    if (a.priority > b.priority) {
+      a.right = merge(a.right, b);
+      a.update();
+      return a;
+    }
+    b.left = merge(a, b.left);
+    b.update();
+    return b;
+  }
+
+  private static int size(Node node) {
+    return (node == null) ? 0 : node.size;
+  }
+
+  private static int count(Node node) {
+    return (node == null) ? 0 : 1 + count(node.left) + count(node.right);
+  }
+
+  /**
+   * A lookup from physical line numbers back to logical ones, made by {@link IndexMap#inverse()}.
+   */
+  static final class Inverse {
+
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] logicals;
+    private final int tail;
+    private final int total;
+
+    private Inverse(int count, int tail, int total) {
+      this.starts = new int[count];
+      this.lengths = new int[count];
+      this.logicals = new int[count];
+      this.tail = tail;
+      this.total = total;
+    }
+
+    /**
+     * Return the logical number of a physical line.
+     * @param physical the physical number under which the cells of a line are stored
+     * @return the logical number of the line, or -1 if the line was deleted
+     */
+    int toLogical(int physical) {
+      if (physical >= this.tail) {
+        return this.total + (physical - this.tail);
+      }
+      //find the last segment that starts at or before the physical number
+      int low = 0;
+      int high = this.starts.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (this.starts[mid] <= physical) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      if ((high < 0) || (physical - this.starts[high] >= this.lengths[high])) {
+        return -1;
+      }
+      return this.logicals[high] + (physical - this.starts[high]);
+    }
+  }
+
+  private static class Node {
+
+    private final int start;
+    private final int priority;
+    private int length;
+    private int size;
+    private Node left;
+    private Node right;
+
+    private Node(int start, int length, int priority) {
+      this.start = start;
+      this.length = length;
+      this.priority = priority;
+      this.size = length;
+    }
+
+    private void update() {
+      this.size = size(this.left) + this.length + size(this.right);
+    }
+  }
+}
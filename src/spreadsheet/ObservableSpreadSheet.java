@@ -0,0 +1,112 @@
+package spreadsheet;
+
+/**
+ * A BetterSpreadSheet that wraps another BetterSpreadSheet and records every successful change
+ * made through it in a {@link ChangeLog}. Downstream consumers can tail the log to learn what a
+ * script changed instead of re-reading whole ranges of the sheet.
+ * A single cell assignment is recorded as one event, and a bulk assignment, copy, move or sort
+ * is recorded as one event for the whole block. Reads are passed straight through to the wrapped
+ * sheet.
+ */
+public class ObservableSpreadSheet implements BetterSpreadSheet {
+
+  private final BetterSpreadSheet delegate;
+  private final ChangeLog changes;
+
+  /**
+   * Constructs a new observable spreadsheet around the given sheet.
+   * @param delegate the sheet that stores the cells
+   * @param capacity the number of most recent changes to retain in the log
+   * @throws IllegalArgumentException if the sheet is null or the capacity is not positive
+   */
+  public ObservableSpreadSheet(BetterSpreadSheet delegate, int capacity)
+      throws IllegalArgumentException {
+    if (delegate == null) {
+      throw new IllegalArgumentException("Sheet is null");
+    }
+    this.delegate = delegate;
+    this.changes = new ChangeLog(capacity);
+  }
+
+  /**
+   * Return the log of changes made through this spreadsheet.
+   * @return the change log of this spreadsheet
+   */
+  public ChangeLog getChangeLog() {
+    return this.changes;
+  }
+
+  @Override
+  public void setInBulk(int sX, int sY, int eX, int eY, double value)
+      throws IllegalArgumentException {
+    this.delegate.setInBulk(sX, sY, eX, eY, value);
+    if ((eX > sX) && (eY > sY)) {
+      this.changes.recordRange(sX, sY, eX, eY, value);
+    }
+  }
+
+  @Override
+  public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    this.delegate.copyRange(sX, sY, eX, eY, dX, dY);
+    if ((eX > sX) && (eY > sY)) {
+      this.changes.recordCopy(sX, sY, eX, eY, dX, dY);
+    }
+  }
+
+  @Override
+  public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    this.delegate.moveRange(sX, sY, eX, eY, dX, dY);
+    if ((eX > sX) && (eY > sY)) {
+      this.changes.recordMove(sX, sY, eX, eY, dX, dY);
+    }
+  }
+
+  @Override
+  public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException {
+    this.delegate.sortRange(sX, sY, eX, eY, keyCol, ascending);
+    if (eX > sX) {
+      this.changes.recordSort(sX, sY, eX, eY, keyCol, ascending);
+    }
+  }
+
+  @Override
+  public int[] topK(int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    return this.delegate.topK(sX, eX, col, k, largest);
+  }
+
+  @Override
+  public Footprint getFootprint() {
+    return this.delegate.getFootprint()
+        .plusStructure(Footprint.object(2 * Footprint.REFERENCE) + this.changes.getBytes());
+  }
+
+  @Override
+  public double get(int row, int col) throws IllegalArgumentException {
+    return this.delegate.get(row, col);
+  }
+
+  @Override
+  public void set(int row, int col, double value) throws IllegalArgumentException {
+    this.delegate.set(row, col, value);
+    this.changes.recordCell(row, col, value);
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col) throws IllegalArgumentException {
+    return this.delegate.isEmpty(row, col);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.delegate.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.delegate.getHeight();
+  }
+}
@@ -0,0 +1,305 @@
+package spreadsheet;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class contains the ordering algorithms behind {@link BetterSpreadSheet#sortRange} and
+ * {@link BetterSpreadSheet#topK}. They work on the key values of a range copied into primitive
+ * arrays, so that they can be shared by every spreadsheet implementation. Implementations that
+ * have no faster way to read a range can use {@link #sortRange} and {@link #topK}, which read and
+ * write the range through the {@link SpreadSheet} methods.
+ * Values are compared like {@link Double#compare}, and keys of empty cells are always ordered
+ * last, after every non-empty key.
+ */
+final class RangeSort {
+
+  //ranges at least this long are sorted with Arrays.parallelSort
+  static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  /**
+   * Gives access to the stored cells of the sheet being sorted, which {@link SpreadSheet} has no
+   * methods for.
+   */
+  interface StoredCells {
+
+    /**
+     * Return the positions of the non-empty cells in the block [sX, eX) x [sY, eY).
+     * @param sX the starting row of the block
+     * @param sY the starting column of the block
+     * @param eX the ending row of the block (exclusive)
+     * @param eY the ending column of the block (exclusive)
+     * @return the {row, column} pairs of the non-empty cells, in no particular order
+     */
+    List<int[]> nonEmptyCells(int sX, int sY, int eX, int eY);
+
+    /**
+     * Empty a cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     */
+    void clear(int row, int col);
+  }
+
+  private RangeSort() {
+  }
+
+  /**
+   * Sort the rows of the block [sX, eX) x [sY, eY) of a sheet by the values in one of its columns.
+   * Only the non-empty cells of the block are read and only the ones whose row changes are
+   * written, so the memory used grows with the rows of the block and its non-empty cells, not
+   * with its area.
+   * @param sheet the sheet to sort
+   * @param cells lists and empties the stored cells of the sheet
+   * @param sX the starting row of the block
+   * @param sY the starting column of the block
+   * @param eX the ending row of the block (exclusive)
+   * @param eY the ending column of the block (exclusive)
+   * @param keyCol the column to sort by
+   * @param ascending true to sort in ascending order, false for descending order
+   * @throws IllegalArgumentException if the block is invalid or keyCol is outside it
+   */
+  static void sortRange(SpreadSheet sheet, StoredCells cells, int sX, int sY, int eX, int eY,
+      int keyCol, boolean ascending) throws IllegalArgumentException {
+    if (sX < 0 || sY < 0) {
+      throw new IllegalArgumentException("Source start row or column can't be negative");
+    }
+    if (eX < 0 || eY < 0) {
+      throw new IllegalArgumentException("Source end row or column can't be negative");
+    }
+    if (eX < sX || eY < sY) {
+      throw new IllegalArgumentException(
+          "Starting cell can't have its x or y less than that of ending cell");
+    }
+    if (keyCol < sY || keyCol >= eY) {
+      throw new IllegalArgumentException("Key column must be inside the range");
+    }
+    //rows and columns past the extent of the sheet are empty and stay where they are
+    int endRow = Math.min(eX, sheet.getHeight());
+    int endCol = Math.min(eY, sheet.getWidth());
+    if ((endRow <= sX) || (keyCol >= endCol)) {
+      return;
+    }
+
+    int rows = endRow - sX;
+    List<int[]> positions = cells.nonEmptyCells(sX, sY, endRow, endCol);
+    double[] values = new double[positions.size()];
+    double[] keys = new double[rows];
+    boolean[] keyPresent = new boolean[rows];
+    for (int i = 0; i < values.length; i++) {
+      int[] position = positions.get(i);
+      values[i] = sheet.get(position[0], position[1]);
+      if (position[1] == keyCol) {
+        keys[position[0] - sX] = values[i];
+        keyPresent[position[0] - sX] = true;
+      }
+    }
+
+    //target[r] is the row that row r of the block moves to
+    int[] order = sortOrder(keys, keyPresent, ascending);
+    int[] target = new int[rows];
+    for (int r = 0; r < rows; r++) {
+      target[order[r]] = r;
+    }
+    //empty every cell that moves before writing any, so that no moved value is overwritten
+    for (int[] position : positions) {
+      if (target[position[0] - sX] != position[0] - sX) {
+        cells.clear(position[0], position[1]);
+      }
+    }
+    for (int i = 0; i < values.length; i++) {
+      int[] position = positions.get(i);
+      int row = target[position[0] - sX];
+      if (row != position[0] - sX) {
+        sheet.set(sX + row, position[1], values[i]);
+      }
+    }
+  }
+
+  /**
+   * Return the rows of a sheet holding the k largest or smallest values of a column within the
+   * rows [sX, eX), reading the column through {@link SpreadSheet#get} and
+   * {@link SpreadSheet#isEmpty}.
+   * @param sheet the sheet to read
+   * @param sX the starting row
+   * @param eX the ending row (exclusive)
+   * @param col the column to rank by
+   * @param k the number of rows to return
+   * @param largest true for the largest values, false for the smallest
+   * @return the selected row numbers, best first
+   * @throws IllegalArgumentException if a row or column is negative, eX is less than sX, or k is
+   *                                  negative
+   */
+  static int[] topK(SpreadSheet sheet, int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    if (sX < 0 || eX < 0 || col < 0) {
+      throw new IllegalArgumentException("Row or column can't be negative");
+    }
+    if (eX < sX) {
+      throw new IllegalArgumentException("Ending row can't be less than starting row");
+    }
+    if (k < 0) {
+      throw new IllegalArgumentException("Number of rows can't be negative");
+    }
+    int rows = Math.max(0, Math.min(eX, sheet.getHeight()) - sX);
+    double[] keys = new double[rows];
+    boolean[] present = new boolean[rows];
+    for (int r = 0; r < rows; r++) {
+      present[r] = !sheet.isEmpty(sX + r, col);
+      keys[r] = present[r] ? sheet.get(sX + r, col) : 0.0;
+    }
+    int[] result = select(keys, present, k, largest);
+    for (int i = 0; i < result.length; i++) {
+      result[i] += sX;
+    }
+    return result;
+  }
+
+  /**
+   * Compute the stable sorted order of the given keys.
+   * @param keys the key of every row
+   * @param present whether the key of every row is non-empty
+   * @param ascending true to sort in ascending order, false for descending order
+   * @return the sorted order: element i is the index of the row that ends up at position i
+   */
+  static int[] sortOrder(double[] keys, boolean[] present, boolean ascending) {
+    int n = keys.length;
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      count += present[i] ? 1 : 0;
+    }
+    double[] sorted = new double[count];
+    for (int i = 0, j = 0; i < n; i++) {
+      if (present[i]) {
+        sorted[j++] = keys[i];
+      }
+    }
+    if (count >= PARALLEL_THRESHOLD) {
+      Arrays.parallelSort(sorted);
+    } else {
+      Arrays.sort(sorted);
+    }
+
+    //rows with equal keys take consecutive positions starting at the first position of their
+    //key, in their original order, which keeps the sort stable. A descending sort reverses the
+    //order of the groups of equal keys but not the order within them, and keeps NaN the largest
+    //key, which negating the keys would not.
+    int[] seen = new int[count];
+    int[] order = new int[n];
+    int empty = count;
+    for (int i = 0; i < n; i++) {
+      if (present[i]) {
+        int first = ascending ? lowerBound(sorted, keys[i]) : count - upperBound(sorted, keys[i]);
+        order[first + seen[first]++] = i;
+      } else {
+        order[empty++] = i;
+      }
+    }
+    return order;
+  }
+
+  /**
+   * Select the k largest or smallest keys using a bounded heap.
+   * @param keys the key of every row
+   * @param present whether the key of every row is non-empty
+   * @param k the number of rows to select
+   * @param largest true to select the largest keys, false for the smallest ones
+   * @return the indices of the selected rows, best first; rows with equal keys are listed in their
+   *         original order. Fewer than k indices are returned if there are fewer non-empty keys.
+   */
+  static int[] select(double[] keys, boolean[] present, int k, boolean largest) {
+    int sign = largest ? 1 : -1;
+    //heap[0] is the worst of the rows selected so far
+    int[] heap = new int[Math.min(k, keys.length)];
+    int size = 0;
+    for (int i = 0; (i < keys.length) && (heap.length > 0); i++) {
+      if (!present[i]) {
+        continue;
+      }
+      if (size < heap.length) {
+        heap[size] = i;
+        siftUp(heap, size++, keys, sign);
+      } else if (better(i, heap[0], keys, sign)) {
+        heap[0] = i;
+        siftDown(heap, size, keys, sign);
+      }
+    }
+    int[] result = new int[size];
+    for (int i = size - 1; i >= 0; i--) {
+      result[i] = heap[0];
+      heap[0] = heap[--size];
+      siftDown(heap, size, keys, sign);
+    }
+    return result;
+  }
+
+  //returns whether row a ranks before row b
+  private static boolean better(int a, int b, double[] keys, int sign) {
+    int c = sign * Double.compare(keys[a], keys[b]);
+    return (c > 0) || ((c == 0) && (a < b));
+  }
+
+  private static void siftUp(int[] heap, int index, double[] keys, int sign) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!better(heap[parent], heap[index], keys, sign)) {
+        return;
+      }
+      swap(heap, parent, index);
+      index = parent;
+    }
+  }
+
+  private static void siftDown(int[] heap, int size, double[] keys, int sign) {
+    int index = 0;
+    while (true) {
+      int worst = index;
+      for (int child = 2 * index + 1; (child <= 2 * index + 2) && (child < size); child++) {
+        if (better(heap[worst], heap[child], keys, sign)) {
+          worst = child;
+        }
+      }
+      if (worst == index) {
+        return;
+      }
+      swap(heap, worst, index);
+      index = worst;
+    }
+  }
+
+  private static void swap(int[] heap, int a, int b) {
+    int temp = heap[a];
+    heap[a] = heap[b];
+    heap[b] = temp;
+  }
+
+  //returns the index of the first key in sorted order that is greater than the given key
+  private static int upperBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (Double.compare(sorted[mid], key) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  //returns the index of the first key in sorted order that is not less than the given key
+  private static int lowerBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (Double.compare(sorted[mid], key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,160 @@
+package spreadsheet;
+
+/**
+ * This class represents a single change made to a spreadsheet, as recorded in a {@link ChangeLog}.
+ * A change is either the assignment of one cell ({@link Kind#CELL}), the bulk assignment of one
+ * value to a rectangular block of cells ({@link Kind#RANGE}), the copy ({@link Kind#COPY}) or
+ * move ({@link Kind#MOVE}) of a block to another position, or the sort of the rows of a block
+ * ({@link Kind#SORT_ASCENDING}, {@link Kind#SORT_DESCENDING}). A change to a block is always
+ * recorded as one event regardless of how many cells it touches, so that the log stays compact.
+ * Rows and columns start with 0, and the block of a change is [startRow, endRow) x [startCol,
+ * endCol), the same convention used by {@link BetterSpreadSheet#setInBulk}. For a copy or move
+ * this is the source block, and the destination block starts at (destRow, destCol). For a sort,
+ * destCol is the key column.
+ */
+public final class SheetChange {
+
+  /**
+   * The kinds of change that may be recorded.
+   */
+  public enum Kind {
+    CELL, RANGE, COPY, MOVE, SORT_ASCENDING, SORT_DESCENDING
+  }
+
+  private final long sequence;
+  private final Kind kind;
+  private final int startRow;
+  private final int startCol;
+  private final int endRow;
+  private final int endCol;
+  private final int destRow;
+  private final int destCol;
+  private final double value;
+
+  SheetChange(long sequence, Kind kind, int startRow, int startCol, int endRow, int endCol,
+      int destRow, int destCol, double value) {
+    this.sequence = sequence;
+    this.kind = kind;
+    this.startRow = startRow;
+    this.startCol = startCol;
+    this.endRow = endRow;
+    this.endCol = endCol;
+    this.destRow = destRow;
+    this.destCol = destCol;
+    this.value = value;
+  }
+
+  /**
+   * Return the sequence number of this change. Sequence numbers start with 0 and increase by one
+   * for every change recorded in the log.
+   * @return the sequence number of this change
+   */
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  /**
+   * Return the kind of this change.
+   * @return the kind of this change
+   */
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Return the first row affected by this change.
+   * @return the first row affected, starting with 0
+   */
+  public int getStartRow() {
+    return this.startRow;
+  }
+
+  /**
+   * Return the first column affected by this change.
+   * @return the first column affected, starting with 0
+   */
+  public int getStartCol() {
+    return this.startCol;
+  }
+
+  /**
+   * Return the row just past the last row affected by this change.
+   * @return the exclusive end row of this change
+   */
+  public int getEndRow() {
+    return this.endRow;
+  }
+
+  /**
+   * Return the column just past the last column affected by this change.
+   * @return the exclusive end column of this change
+   */
+  public int getEndCol() {
+    return this.endCol;
+  }
+
+  /**
+   * Return the first row of the destination block of a copy or move.
+   * @return the destination row, or the start row for other kinds of change
+   */
+  public int getDestRow() {
+    return this.destRow;
+  }
+
+  /**
+   * Return the first column of the destination block of a copy or move, or the key column of a
+   * sort.
+   * @return the destination or key column, or the start column for other kinds of change
+   */
+  public int getDestCol() {
+    return this.destCol;
+  }
+
+  /**
+   * Return the value written by this change. This is 0 for a copy, move or sort.
+   * @return the value written to every affected cell
+   */
+  public double getValue() {
+    return this.value;
+  }
+
+  /**
+   * Returns whether this change overwrites every cell written by the other change, which makes the
+   * other change redundant if it happened earlier. A copy, move or sort never covers, and is never
+   * covered by, another change, since it does not write every cell of its block.
+   * @param other the change to compare against
+   * @return true if this change completely overwrites the other one, false otherwise
+   */
+  public boolean covers(SheetChange other) {
+    if (!this.isAssignment() || !other.isAssignment()) {
+      return false;
+    }
+    return this.startRow <= other.startRow && this.startCol <= other.startCol
+        && this.endRow >= other.endRow && this.endCol >= other.endCol;
+  }
+
+  /**
+   * Returns whether this change assigns a value, as opposed to copying, moving or sorting cells.
+   * @return true if this is a CELL or RANGE change, false otherwise
+   */
+  public boolean isAssignment() {
+    return (this.kind == Kind.CELL) || (this.kind == Kind.RANGE);
+  }
+
+  @Override
+  public String toString() {
+    if (this.kind == Kind.CELL) {
+      return "#" + sequence + " CELL (" + startRow + "," + startCol + ")=" + value;
+    }
+    if ((this.kind == Kind.SORT_ASCENDING) || (this.kind == Kind.SORT_DESCENDING)) {
+      return "#" + sequence + " " + kind + " (" + startRow + "," + startCol + ")-(" + endRow + ","
+          + endCol + ") by " + destCol;
+    }
+    if (!this.isAssignment()) {
+      return "#" + sequence + " " + kind + " (" + startRow + "," + startCol + ")-(" + endRow + ","
+          + endCol + ")->(" + destRow + "," + destCol + ")";
+    }
+    return "#" + sequence + " " + kind + " (" + startRow + "," + startCol + ")-(" + endRow + ","
+        + endCol + ")=" + value;
+  }
+}
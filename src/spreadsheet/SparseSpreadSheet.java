@@ -1,6 +1,8 @@
 package spreadsheet;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -13,6 +15,7 @@ public class SparseSpreadSheet implements SpreadSheet {
   private final Map<CellPosition, Double> sheet;
   private int width;
   private int height;
+  private int peakCells;
 
   /**
    * assigns values.
@@ -21,6 +24,7 @@ public class SparseSpreadSheet implements SpreadSheet {
     this.sheet = new HashMap<CellPosition, Double>();
     this.width = 0;
     this.height = 0;
+    this.peakCells = 0;
   }
 
   @Override
@@ -37,6 +41,7 @@ public class SparseSpreadSheet implements SpreadSheet {
       throw new IllegalArgumentException("Row or column cannot be negative");
     }
     this.sheet.put(new CellPosition(row, col), value);
+    this.peakCells = Math.max(this.peakCells, this.sheet.size());
     if ((row + 1) > height) {
       height = row + 1;
     }
@@ -64,6 +69,58 @@ public class SparseSpreadSheet implements SpreadSheet {
     return this.height;
   }
 
+  /**
+   * Estimate the memory used by this spreadsheet.
+   * @return the number of cells stored and the bytes used by their keys, values and the hash map
+   */
+  public Footprint getFootprint() {
+    return Footprint.ofHashSheet(this.sheet.size(), this.peakCells,
+        Footprint.object(Footprint.REFERENCE + 3 * 4));
+  }
+
+  /**
+   * Empty the specified cell. This does not reduce the width or height of this spreadsheet.
+   * @param row the row number of the cell, starting with 0
+   * @param col the column number of the cell, starting with 0
+   * @throws IllegalArgumentException if the row or column are negative
+   */
+  protected void clear(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (col < 0)) {
+      throw new IllegalArgumentException("Row or column cannot be negative");
+    }
+    this.sheet.remove(new CellPosition(row, col));
+  }
+
+  /**
+   * Return the positions of the non-empty cells in the block [sX, eX) x [sY, eY). Only the
+   * non-empty cells of the sheet are visited when there are fewer of them than cells in the block.
+   * @param sX the starting row of the block
+   * @param sY the starting column of the block
+   * @param eX the ending row of the block (exclusive)
+   * @param eY the ending column of the block (exclusive)
+   * @return the {row, column} pairs of the non-empty cells in the block, in no particular order
+   */
+  protected List<int[]> nonEmptyCells(int sX, int sY, int eX, int eY) {
+    List<int[]> result = new ArrayList<int[]>();
+    if ((long) (eX - sX) * (eY - sY) <= this.sheet.size()) {
+      for (int r = sX; r < eX; r++) {
+        for (int c = sY; c < eY; c++) {
+          if (this.sheet.containsKey(new CellPosition(r, c))) {
+            result.add(new int[]{r, c});
+          }
+        }
+      }
+    } else {
+      for (CellPosition position : this.sheet.keySet()) {
+        if ((position.row >= sX) && (position.row < eX)
+            && (position.column >= sY) && (position.column < eY)) {
+          result.add(new int[]{position.row, position.column});
+        }
+      }
+    }
+    return result;
+  }
+
   private static class CellPosition {
 
     private final int row;
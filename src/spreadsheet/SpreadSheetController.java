@@ -1,6 +1,9 @@
 package spreadsheet;
 
 import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -15,12 +18,17 @@ import java.util.Scanner;
  * column is AD 26.
  * In this way it tries to simulate how Microsoft Excel works (except that it uses letters for rows,
  * not columns).
+ * A controller may also be created in script mode, for running instructions from a file. In this
+ * mode no welcome message, menu, prompts or farewell message are written, the end of the input
+ * acts as quit, and the input is split into words directly instead of through a Scanner, which
+ * keeps the startup of short-lived batch runs cheap.
  */
 public class SpreadSheetController {
 
   private final Readable readable;
   private final Appendable appendable;
   private final BetterSpreadSheet sheet;
+  private final boolean script;
 
 
   /**
@@ -30,12 +38,25 @@ public class SpreadSheetController {
    * @param appendable appendable
    */
   public SpreadSheetController(BetterSpreadSheet sheet, Readable readable, Appendable appendable) {
+    this(sheet, readable, appendable, false);
+  }
+
+  /**
+   * contructor to initialize objects, optionally in script mode.
+   * @param sheet  sheet
+   * @param readable readable
+   * @param appendable appendable
+   * @param script true to run in script mode, false for the interactive mode
+   */
+  public SpreadSheetController(BetterSpreadSheet sheet, Readable readable, Appendable appendable,
+      boolean script) {
     if ((sheet == null) || (readable == null) || (appendable == null)) {
       throw new IllegalArgumentException("Sheet, readable or appendable is null");
     }
     this.sheet = sheet;
     this.appendable = appendable;
     this.readable = readable;
+    this.script = script;
   }
 
   /**
@@ -43,24 +64,30 @@ public class SpreadSheetController {
    * @throws IllegalStateException for invalid commands
    */
   public void goExecute() throws IllegalStateException {
-    Scanner sc = new Scanner(readable);
+    Tokens sc = script ? new ReadableTokens(readable) : new ScannerTokens(new Scanner(readable));
     boolean quit = false;
     int row;
     int col;
     double value;
 
     //print the welcome message
-    this.welcomeMessage();
+    if (!script) {
+      this.welcomeMessage();
+    }
 
     while (!quit) { //continue until the user quits
-      writeMessage("Type instruction: "); //prompt for the instruction name
-      String userInstruction = sc.next(); //take an instruction name
+      if (!script) {
+        writeMessage("Type instruction: "); //prompt for the instruction name
+      }
+      String userInstruction = sc.nextInstruction(); //take an instruction name
+      if (userInstruction == null) { //the end of a script
+        break;
+      }
       switch (userInstruction) {
         case "assign-value": //assign a value to a cell
           try {
             row = getRowNum(sc.next()); //get in the row string
             col = sc.nextInt(); //get in the column number, starting with 1
-            System.out.println("Setting cell (" + row + "," + (col - 1));
             sheet.set(row, col - 1, sc.nextDouble()); //use the spreadsheet
           } catch (IllegalArgumentException e) {
             writeMessage("Error: " + e.getMessage() + System.lineSeparator());
@@ -90,6 +117,35 @@ public class SpreadSheetController {
             writeMessage("Error: " + e.getMessage() + System.lineSeparator());
           }
           break;
+        case "copy-range": //copy a range of cells to another position
+        case "move-range": //move a range of cells to another position
+          try {
+            int row1;
+            int col1;
+            int row2;
+            int col2;
+            row = getRowNum(sc.next()); //get the row string
+            col = sc.nextInt(); //get the column number, starting with 1
+            row1 = getRowNum(sc.next()); //get the row string
+            col1 = sc.nextInt(); //get the column number, starting with 1
+            row2 = getRowNum(sc.next()); //get the destination row string
+            col2 = sc.nextInt(); //get the destination column number, starting with 1
+            boolean move = userInstruction.equals("move-range");
+            writeMessage((move ? "Moving" : "Copying") + " cells (" + row + "," + (col - 1) + ","
+                + row1 + "," + (col1 - 1) + ") to (" + row2 + "," + (col2 - 1) + ")"
+                + System.lineSeparator());
+            if (move) {
+              sheet.moveRange(row, col - 1, row1, col1 - 1, row2, col2 - 1);
+            } else {
+              sheet.copyRange(row, col - 1, row1, col1 - 1, row2, col2 - 1);
+            }
+          } catch (IllegalArgumentException e) {
+            writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+          }
+          break;
+        case "stats": //print the memory used by the sheet
+          writeMessage(sheet.getFootprint() + System.lineSeparator());
+          break;
         case "menu": //print the menu of supported instructions
           welcomeMessage();
           break;
@@ -103,7 +159,9 @@ public class SpreadSheetController {
     }
 
     //after the user has quit, print farewell message
-    this.farewellMessage();
+    if (!script) {
+      this.farewellMessage();
+    }
 
   }
 
@@ -139,6 +197,11 @@ public class SpreadSheetController {
         "print-value row-num col-num (print the value at a given cell)" + System.lineSeparator());
     writeMessage(
         "bulk-assign row-num col-num (set values to given cell range)" + System.lineSeparator());
+    writeMessage("copy-range row-num col-num row-num col-num row-num col-num "
+        + "(copy cell range to given cell)" + System.lineSeparator());
+    writeMessage("move-range row-num col-num row-num col-num row-num col-num "
+        + "(move cell range to given cell)" + System.lineSeparator());
+    writeMessage("stats (print memory usage of the sheet)" + System.lineSeparator());
     writeMessage("menu (Print supported instruction list)" + System.lineSeparator());
     writeMessage("q or quit (quit the program) " + System.lineSeparator());
   }
@@ -152,5 +215,133 @@ public class SpreadSheetController {
     writeMessage("Thank you for using this program!");
   }
 
+  /**
+   * The words of the input, as read by the controller.
+   */
+  private interface Tokens {
+
+    //returns the next instruction name, or null at the end of a script
+    String nextInstruction();
+
+    String next();
+
+    int nextInt();
+
+    double nextDouble();
+  }
+
+  /**
+   * Reads words through a Scanner, as in the interactive mode.
+   */
+  private static class ScannerTokens implements Tokens {
+
+    private final Scanner scanner;
+
+    private ScannerTokens(Scanner scanner) {
+      this.scanner = scanner;
+    }
+
+    @Override
+    public String nextInstruction() {
+      return this.scanner.next();
+    }
+
+    @Override
+    public String next() {
+      return this.scanner.next();
+    }
+
+    @Override
+    public int nextInt() {
+      return this.scanner.nextInt();
+    }
+
+    @Override
+    public double nextDouble() {
+      return this.scanner.nextDouble();
+    }
+  }
+
+  /**
+   * Splits the input into whitespace-separated words directly, as in script mode. This avoids
+   * loading the regular expression machinery a Scanner needs.
+   */
+  private static class ReadableTokens implements Tokens {
+
+    private final Readable readable;
+    private final CharBuffer buffer;
+    private boolean ended;
+
+    private ReadableTokens(Readable readable) {
+      this.readable = readable;
+      this.buffer = CharBuffer.allocate(4096);
+      this.buffer.flip();
+      this.ended = false;
+    }
+
+    //returns the next character, or -1 at the end of the input
+    private int read() throws IllegalStateException {
+      while (!this.buffer.hasRemaining()) {
+        if (this.ended) {
+          return -1;
+        }
+        this.buffer.clear();
+        try {
+          this.ended = this.readable.read(this.buffer) < 0;
+        } catch (IOException e) {
+          throw new IllegalStateException(e.getMessage());
+        }
+        this.buffer.flip();
+      }
+      return this.buffer.get();
+    }
+
+    @Override
+    public String nextInstruction() {
+      int c = read();
+      while ((c != -1) && Character.isWhitespace(c)) {
+        c = read();
+      }
+      if (c == -1) {
+        return null;
+      }
+      StringBuilder word = new StringBuilder();
+      while ((c != -1) && !Character.isWhitespace(c)) {
+        word.append((char) c);
+        c = read();
+      }
+      return word.toString();
+    }
+
+    @Override
+    public String next() throws NoSuchElementException {
+      String word = nextInstruction();
+      if (word == null) {
+        throw new NoSuchElementException();
+      }
+      return word;
+    }
+
+    @Override
+    public int nextInt() {
+      String word = next();
+      try {
+        return Integer.parseInt(word);
+      } catch (NumberFormatException e) {
+        throw new InputMismatchException(word);
+      }
+    }
+
+    @Override
+    public double nextDouble() {
+      String word = next();
+      try {
+        return Double.parseDouble(word);
+      } catch (NumberFormatException e) {
+        throw new InputMismatchException(word);
+      }
+    }
+  }
+
 
 }
@@ -1,9 +1,18 @@
 package spreadsheet;
 
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 
 /**
  * Main calling class for spreadsheet.
+ * Without arguments the program runs interactively on the console. With the name of a script file
+ * as its argument (or "-" for standard input) it runs the script in the controller's script mode
+ * and buffers its output until the script ends, which keeps short batch runs fast.
  */
 public class SpreadSheetProgram {
 
@@ -12,10 +21,31 @@ public class SpreadSheetProgram {
    * @param args args
    */
   public static void main(String []args) {
+    if (args.length > 0) {
+      runScript(args[0]);
+      return;
+    }
     BetterSpreadSheet model = new BetterSpreadSheetImpl();
     Readable rd = new InputStreamReader(System.in);
     Appendable ap = System.out;
     SpreadSheetController controller = new SpreadSheetController(model,rd,ap);
     controller.goExecute();
   }
+
+  private static void runScript(String fileName) {
+    try (Reader rd = fileName.equals("-") ? new InputStreamReader(System.in)
+        : new FileReader(fileName)) {
+      Writer ap = new BufferedWriter(new OutputStreamWriter(System.out));
+      SpreadSheetController controller =
+          new SpreadSheetController(new BetterSpreadSheetImpl(), rd, ap, true);
+      try {
+        controller.goExecute();
+      } finally {
+        ap.flush();
+      }
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
 }
@@ -0,0 +1,160 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for the row and column operations of BetterSpreadSheetImpl.
+ */
+public class BetterSpreadSheetImplTest {
+
+  @Test
+  public void testInsertRowShiftsCellsDown() {
+    BetterSpreadSheetImpl sheet = new BetterSpreadSheetImpl();
+    sheet.set(0, 0, 1);
+    sheet.set(1, 0, 2);
+    sheet.set(2, 1, 3);
+    sheet.insertRow(1);
+    assertEquals(1.0, sheet.get(0, 0), 0.0);
+    assertTrue(sheet.isEmpty(1, 0));
+    assertEquals(2.0, sheet.get(2, 0), 0.0);
+    assertEquals(3.0, sheet.get(3, 1), 0.0);
+    assertEquals(4, sheet.getHeight());
+    assertEquals(2, sheet.getWidth());
+  }
+
+  @Test
+  public void testDeleteColumnDropsItsCells() {
+    BetterSpreadSheetImpl sheet = new BetterSpreadSheetImpl();
+    sheet.setInBulk(0, 0, 3, 3, 5);
+    sheet.set(1, 1, 7);
+    sheet.deleteColumn(1);
+    assertEquals(5.0, sheet.get(1, 1), 0.0);
+    assertEquals(2, sheet.getWidth());
+    assertTrue(sheet.isEmpty(1, 2));
+    sheet.insertColumn(0);
+    assertTrue(sheet.isEmpty(0, 0));
+    assertFalse(sheet.isEmpty(0, 1));
+    assertEquals(3, sheet.getWidth());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDeleteNegativeRow() {
+    new BetterSpreadSheetImpl().deleteRow(-1);
+  }
+
+  @Test
+  public void testMatchesRewrittenKeys() {
+    Random random = new Random(7);
+    BetterSpreadSheetImpl sheet = new BetterSpreadSheetImpl();
+    Map<Long, Double> expected = new HashMap<Long, Double>();
+    int[] size = {0, 0};
+    for (int i = 0; i < 3000; i++) {
+      int row = random.nextInt(40);
+      int col = random.nextInt(40);
+      int op = random.nextInt(10);
+      if (op == 0) {
+        sheet.insertRow(row);
+        expected = shift(expected, row, true, 1);
+        size[0] += (row < size[0]) ? 1 : 0;
+      } else if (op == 1) {
+        sheet.deleteRow(row);
+        expected = shift(expected, row, true, -1);
+        size[0] -= (row < size[0]) ? 1 : 0;
+      } else if (op == 2) {
+        sheet.insertColumn(col);
+        expected = shift(expected, col, false, 1);
+        size[1] += (col < size[1]) ? 1 : 0;
+      } else if (op == 3) {
+        sheet.deleteColumn(col);
+        expected = shift(expected, col, false, -1);
+        size[1] -= (col < size[1]) ? 1 : 0;
+      } else if (op == 4) {
+        //small blocks visit their cells, huge ones visit the stored cells of the sheet
+        int extent = random.nextBoolean() ? 3 : 1000000;
+        sheet.moveRange(row, col, row + extent, col + extent, col, row);
+        Map<Long, Double> moved = new HashMap<Long, Double>(expected);
+        for (Map.Entry<Long, Double> entry : expected.entrySet()) {
+          int r = (int) (entry.getKey() >> 32);
+          int c = entry.getKey().intValue();
+          if ((r >= row) && (r < row + extent) && (c >= col) && (c < col + extent)) {
+            moved.remove(entry.getKey());
+          }
+        }
+        for (Map.Entry<Long, Double> entry : expected.entrySet()) {
+          int r = (int) (entry.getKey() >> 32);
+          int c = entry.getKey().intValue();
+          if ((r >= row) && (r < row + extent) && (c >= col) && (c < col + extent)) {
+            moved.put(key(r - row + col, c - col + row), entry.getValue());
+            size[0] = Math.max(size[0], r - row + col + 1);
+            size[1] = Math.max(size[1], c - col + row + 1);
+          }
+        }
+        expected = moved;
+      } else {
+        double value = random.nextInt(100);
+        sheet.set(row, col, value);
+        expected.put(key(row, col), value);
+        size[0] = Math.max(size[0], row + 1);
+        size[1] = Math.max(size[1], col + 1);
+      }
+    }
+    assertEquals(size[0], sheet.getHeight());
+    assertEquals(size[1], sheet.getWidth());
+    for (int r = 0; r < size[0] + 10; r++) {
+      for (int c = 0; c < size[1] + 10; c++) {
+        Double value = expected.get(key(r, c));
+        assertEquals(value == null, sheet.isEmpty(r, c));
+        assertEquals(value == null ? 0.0 : value, sheet.get(r, c), 0.0);
+      }
+    }
+  }
+
+  @Test(timeout = 2000)
+  public void testHugeCopyAfterInsertVisitsOnlyStoredCells() {
+    BetterSpreadSheetImpl sheet = new BetterSpreadSheetImpl();
+    for (int r = 0; r < 10; r++) {
+      sheet.set(r, 0, r);
+    }
+    sheet.insertRow(0);
+    sheet.deleteRow(5);
+    sheet.copyRange(0, 0, 20000000, 1, 0, 3);
+    sheet.moveRange(0, 3, 20000000, 20000000, 2, 1);
+    for (int r = 0; r < 10; r++) {
+      double value = (r < 5) ? r - 1 : r;
+      assertEquals(r != 0, !sheet.isEmpty(r, 0));
+      assertEquals(r != 0, !sheet.isEmpty(r + 2, 1));
+      assertEquals((r == 0) ? 0.0 : value, sheet.get(r + 2, 1), 0.0);
+      assertTrue(sheet.isEmpty(r, 3));
+    }
+  }
+
+  private static long key(int row, int col) {
+    return ((long) row << 32) | col;
+  }
+
+  //rewrites every key after an insert (delta 1) or delete (delta -1) at the given line
+  private static Map<Long, Double> shift(Map<Long, Double> cells, int line, boolean isRow,
+      int delta) {
+    Map<Long, Double> result = new HashMap<Long, Double>();
+    for (Map.Entry<Long, Double> entry : cells.entrySet()) {
+      int r = (int) (entry.getKey() >> 32);
+      int c = entry.getKey().intValue();
+      int position = isRow ? r : c;
+      if ((delta < 0) && (position == line)) {
+        continue;
+      }
+      if (position >= line) {
+        position += delta;
+      }
+      result.put(isRow ? key(position, c) : key(r, position), entry.getValue());
+    }
+    return result;
+  }
+}
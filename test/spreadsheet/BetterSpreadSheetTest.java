@@ -0,0 +1,184 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for the block operations that every BetterSpreadSheet implementation provides.
+ */
+public class BetterSpreadSheetTest {
+
+  @Test
+  public void testOverlappingTransfers() {
+    BetterSpreadSheet[] models = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet(),
+        new ColumnarSpreadSheet()};
+    for (BetterSpreadSheet model : models) {
+      model.set(0, 0, 1);
+      model.set(0, 1, 2);
+      model.set(1, 0, 3);
+      model.set(1, 1, 4);
+      model.set(2, 2, 9);
+      model.copyRange(0, 0, 2, 2, 1, 1);
+      assertEquals(1.0, model.get(1, 1), 0.0);
+      assertEquals(2.0, model.get(1, 2), 0.0);
+      assertEquals(3.0, model.get(2, 1), 0.0);
+      assertEquals(4.0, model.get(2, 2), 0.0);
+      assertEquals(3.0, model.get(1, 0), 0.0);
+
+      model.moveRange(1, 1, 3, 3, 0, 0);
+      assertEquals(1.0, model.get(0, 0), 0.0);
+      assertEquals(2.0, model.get(0, 1), 0.0);
+      assertEquals(3.0, model.get(1, 0), 0.0);
+      assertEquals(4.0, model.get(1, 1), 0.0);
+      assertTrue(model.isEmpty(1, 2));
+      assertTrue(model.isEmpty(2, 1));
+      assertTrue(model.isEmpty(2, 2));
+      assertEquals(3, model.getHeight());
+      assertEquals(3, model.getWidth());
+
+      model.copyRange(5, 5, 8, 8, 0, 0);
+      assertEquals(1.0, model.get(0, 0), 0.0);
+    }
+  }
+
+  @Test
+  public void testTransferPastLastRowLeavesSheetUnchanged() {
+    BetterSpreadSheet[] models = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet(),
+        new ColumnarSpreadSheet()};
+    for (BetterSpreadSheet model : models) {
+      model.set(0, 0, 1);
+      model.set(1, 0, 2);
+      for (boolean move : new boolean[]{false, true}) {
+        for (int[] destination : new int[][]{{Integer.MAX_VALUE, 0}, {0, Integer.MAX_VALUE - 1}}) {
+          try {
+            if (move) {
+              model.moveRange(0, 0, 2, 2, destination[0], destination[1]);
+            } else {
+              model.copyRange(0, 0, 2, 2, destination[0], destination[1]);
+            }
+            fail("Expected an IllegalArgumentException");
+          } catch (IllegalArgumentException e) {
+            //expected
+          }
+          assertEquals(1.0, model.get(0, 0), 0.0);
+          assertEquals(2.0, model.get(1, 0), 0.0);
+          assertEquals(2, model.getHeight());
+          assertEquals(1, model.getWidth());
+        }
+      }
+      //a block that ends exactly at the last row fits
+      model.moveRange(0, 0, 1, 1, Integer.MAX_VALUE - 1, 0);
+      assertTrue(model.isEmpty(0, 0));
+      assertEquals(1.0, model.get(Integer.MAX_VALUE - 1, 0), 0.0);
+    }
+  }
+
+  @Test
+  public void testSortRangeAndTopK() {
+    BetterSpreadSheet[] models = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet(),
+        new ColumnarSpreadSheet()};
+    for (BetterSpreadSheet model : models) {
+      double[] keys = {3, 1, 2, 1, 5};
+      for (int r = 0; r < keys.length; r++) {
+        model.set(r + 1, 1, keys[r]);
+        model.set(r + 1, 2, r);
+      }
+      model.set(6, 2, 99);
+      model.set(0, 1, 100);
+
+      assertArrayEquals(new int[]{5, 1, 3}, model.topK(1, 7, 1, 3, true));
+      assertArrayEquals(new int[]{2, 4}, model.topK(1, 7, 1, 2, false));
+      assertArrayEquals(new int[]{0, 5, 1, 3, 2, 4}, model.topK(0, 10, 1, 10, true));
+
+      model.sortRange(1, 1, 7, 3, 1, true);
+      assertEquals(100.0, model.get(0, 1), 0.0);
+      double[] sortedKeys = {1, 1, 2, 3, 5};
+      double[] sortedRows = {1, 3, 2, 0, 4};
+      for (int r = 0; r < sortedKeys.length; r++) {
+        assertEquals(sortedKeys[r], model.get(r + 1, 1), 0.0);
+        assertEquals(sortedRows[r], model.get(r + 1, 2), 0.0);
+      }
+      assertTrue(model.isEmpty(6, 1));
+      assertEquals(99.0, model.get(6, 2), 0.0);
+
+      model.sortRange(1, 1, 7, 3, 1, false);
+      assertEquals(5.0, model.get(1, 1), 0.0);
+      assertEquals(1.0, model.get(4, 2), 0.0);
+      assertEquals(3.0, model.get(5, 2), 0.0);
+    }
+  }
+
+  @Test
+  public void testSortAndTopKAgreeOnNaN() {
+    BetterSpreadSheet[] models = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet(),
+        new ColumnarSpreadSheet()};
+    for (BetterSpreadSheet model : models) {
+      double[] keys = {1, Double.NaN, 2, -0.0, 0.0, 2};
+      for (int r = 0; r < keys.length; r++) {
+        model.set(r, 0, keys[r]);
+        model.set(r, 1, r);
+      }
+      assertArrayEquals(new int[]{1, 2, 5}, model.topK(0, 6, 0, 3, true));
+
+      model.sortRange(0, 0, 6, 2, 0, false);
+      double[] sortedRows = {1, 2, 5, 0, 4, 3};
+      for (int r = 0; r < sortedRows.length; r++) {
+        assertEquals(sortedRows[r], model.get(r, 1), 0.0);
+      }
+      model.sortRange(0, 0, 6, 2, 0, true);
+      sortedRows = new double[]{3, 4, 0, 2, 5, 1};
+      for (int r = 0; r < sortedRows.length; r++) {
+        assertEquals(sortedRows[r], model.get(r, 1), 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void testSortLargeRangeIsStable() {
+    int rows = RangeSort.PARALLEL_THRESHOLD * 2;
+    BetterSpreadSheet model = new ColumnarSpreadSheet();
+    Random random = new Random(3);
+    for (int r = 0; r < rows; r++) {
+      model.set(r, 0, random.nextInt(100));
+      model.set(r, 1, r);
+    }
+    model.sortRange(0, 0, rows, 2, 0, true);
+    for (int r = 1; r < rows; r++) {
+      assertTrue(model.get(r - 1, 0) <= model.get(r, 0));
+      if (model.get(r - 1, 0) == model.get(r, 0)) {
+        assertTrue(model.get(r - 1, 1) < model.get(r, 1));
+      }
+    }
+  }
+
+  @Test
+  public void testSortSparseBlockMovesOnlyStoredCells() {
+    //a dense copy of this block would take several gigabytes
+    BetterSpreadSheet[] models = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet()};
+    for (BetterSpreadSheet model : models) {
+      model.set(0, 0, 1);
+      model.set(0, 3, 10);
+      model.set(1, 0, 2);
+      model.set(200_000, 0, 3);
+      model.set(200_000, 2_000, 30);
+      model.set(150_000, 1_000, 40);
+      model.sortRange(0, 0, 200_001, 2_001, 0, false);
+      assertEquals(3, model.get(0, 0), 0);
+      assertEquals(30, model.get(0, 2_000), 0);
+      assertEquals(2, model.get(1, 0), 0);
+      assertEquals(1, model.get(2, 0), 0);
+      assertEquals(10, model.get(2, 3), 0);
+      assertTrue(model.isEmpty(0, 3));
+      assertTrue(model.isEmpty(200_000, 0));
+      assertTrue(model.isEmpty(200_000, 2_000));
+      //rows without a key keep their order after the rows with one
+      assertEquals(40, model.get(150_001, 1_000), 0);
+      assertTrue(model.isEmpty(150_000, 1_000));
+    }
+  }
+}
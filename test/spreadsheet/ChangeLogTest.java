@@ -0,0 +1,55 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Test class for ChangeLog and ObservableSpreadSheet.
+ */
+public class ChangeLogTest {
+
+  @Test
+  public void testOverwritesOldest() {
+    ObservableSpreadSheet model = new ObservableSpreadSheet(new BetterSpreadSheetImpl(), 2);
+    ChangeLog.Cursor cursor = model.getChangeLog().subscribe();
+    model.set(0, 0, 1);
+    model.set(0, 1, 2);
+    model.set(0, 2, 3);
+    List<SheetChange> changes = cursor.poll(10);
+    assertEquals(1, cursor.getMissed());
+    assertEquals(2, changes.size());
+    assertEquals(1, changes.get(0).getSequence());
+    assertEquals(1, model.getChangeLog().getFirstSequence());
+  }
+
+  @Test
+  public void testConcurrentReader() throws InterruptedException {
+    ChangeLog log = new ChangeLog(64);
+    ChangeLog.Cursor cursor = log.subscribe();
+    int total = 1000000;
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < total; i++) {
+        log.recordCell(i, i % 7, i);
+      }
+    });
+    writer.start();
+    long read = 0;
+    long last = -1;
+    while (writer.isAlive() || (cursor.getPosition() < total)) {
+      for (SheetChange change : cursor.poll(64)) {
+        //changes come in order and intact, never from a slot the writer has reused
+        assertTrue(change.getSequence() > last);
+        last = change.getSequence();
+        assertEquals(change.getSequence(), change.getStartRow());
+        assertEquals(change.getSequence(), change.getValue(), 0.0);
+        read++;
+      }
+    }
+    writer.join();
+    assertEquals(total, cursor.getPosition());
+    assertEquals(total, read + cursor.getMissed());
+  }
+}
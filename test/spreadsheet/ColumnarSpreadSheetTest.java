@@ -0,0 +1,106 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for ColumnarSpreadSheet.
+ */
+public class ColumnarSpreadSheetTest {
+
+  @Test
+  public void testEmptySheet() {
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet();
+    assertEquals(0.0, sheet.get(3, 4), 0.0);
+    assertTrue(sheet.isEmpty(3, 4));
+    assertEquals(0, sheet.getWidth());
+    assertEquals(0, sheet.getHeight());
+  }
+
+  @Test
+  public void testBulkAssignAcrossBlocks() {
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet(1);
+    sheet.setInBulk(100, 1, 1000, 3, 2.5);
+    sheet.compact();
+    assertTrue(sheet.isEmpty(99, 1));
+    assertFalse(sheet.isEmpty(100, 1));
+    assertFalse(sheet.isEmpty(999, 2));
+    assertTrue(sheet.isEmpty(1000, 2));
+    assertTrue(sheet.isEmpty(500, 0));
+    assertEquals(2.5, sheet.get(512, 2), 0.0);
+    assertEquals(1000, sheet.getHeight());
+    assertEquals(3, sheet.getWidth());
+  }
+
+  @Test
+  public void testSlowlyVaryingValuesRoundTrip() {
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet(2);
+    for (int r = 0; r < 2000; r++) {
+      sheet.set(r, 0, 100.0 + r * 0.25);
+      sheet.set(r, 1, Math.sin(r));
+      sheet.set(r, 2, -r);
+    }
+    sheet.compact();
+    for (int r = 0; r < 2000; r++) {
+      assertEquals(100.0 + r * 0.25, sheet.get(r, 0), 0.0);
+      assertEquals(Math.sin(r), sheet.get(r, 1), 0.0);
+      assertEquals(-r, sheet.get(r, 2), 0.0);
+    }
+  }
+
+  @Test
+  public void testDistantCellsStaySmall() {
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet(1);
+    sheet.set(0, 50000000, 1.0);
+    sheet.set(2000000000, 3, 2.0);
+    sheet.compact();
+    assertEquals(1.0, sheet.get(0, 50000000), 0.0);
+    assertEquals(2.0, sheet.get(2000000000, 3), 0.0);
+    assertTrue(sheet.isEmpty(1, 50000000));
+    assertTrue(sheet.isEmpty(2000000000, 2));
+    assertEquals(2, sheet.getFootprint().getCells());
+    assertTrue(sheet.getFootprint().getTotalBytes() < 4096);
+
+    sheet.moveRange(0, 50000000, 1, 50000001, 5, 6);
+    sheet.compact();
+    assertTrue(sheet.isEmpty(0, 50000000));
+    assertEquals(1.0, sheet.get(5, 6), 0.0);
+    assertTrue(sheet.getFootprint().getTotalBytes() < 4096);
+  }
+
+  @Test
+  public void testMatchesHashMapSheet() {
+    Random random = new Random(42);
+    BetterSpreadSheet expected = new BetterSpreadSheetImpl();
+    ColumnarSpreadSheet actual = new ColumnarSpreadSheet(3);
+    double[] palette = {0.0, -0.0, 1.0, 1.5, Double.NaN, 1e300, -7.25};
+    for (int i = 0; i < 5000; i++) {
+      int row = random.nextInt(1500);
+      int col = random.nextInt(12);
+      double value = palette[random.nextInt(palette.length)];
+      if (random.nextInt(50) == 0) {
+        int endRow = row + random.nextInt(600);
+        int endCol = col + random.nextInt(3);
+        expected.setInBulk(row, col, endRow, endCol, value);
+        actual.setInBulk(row, col, endRow, endCol, value);
+      } else {
+        expected.set(row, col, value);
+        actual.set(row, col, value);
+      }
+    }
+    actual.compact();
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int r = 0; r < expected.getHeight(); r++) {
+      for (int c = 0; c < expected.getWidth(); c++) {
+        assertEquals(expected.isEmpty(r, c), actual.isEmpty(r, c));
+        assertEquals(Double.doubleToRawLongBits(expected.get(r, c)),
+            Double.doubleToRawLongBits(actual.get(r, c)));
+      }
+    }
+  }
+}
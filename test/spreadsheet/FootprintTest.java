@@ -0,0 +1,173 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+
+/**
+ * Test class for the footprint estimates of the spreadsheet implementations. The estimates are
+ * compared with the growth of the heap measured while building sheets of several sizes and
+ * densities.
+ */
+public class FootprintTest {
+
+  //how far an estimate may be from the measured heap growth, as a fraction of the measurement
+  private static final double TOLERANCE = 0.25;
+
+  private interface SheetFactory {
+    BetterSpreadSheet create();
+  }
+
+  private static final SheetFactory[] FACTORIES = {
+      BetterSpreadSheetImpl::new, BetterSparseSpreadSheet::new, ColumnarSpreadSheet::new,
+      () -> new ObservableSpreadSheet(new BetterSpreadSheetImpl(), 1024)
+  };
+
+  @Test
+  public void testEmptySheets() {
+    for (SheetFactory factory : FACTORIES) {
+      Footprint footprint = factory.create().getFootprint();
+      assertEquals(0, footprint.getCells());
+      assertEquals(0, footprint.getKeyBytes());
+      assertEquals(0, footprint.getValueBytes());
+      assertTrue(footprint.getStructureBytes() > 0);
+    }
+  }
+
+  @Test
+  public void testCellCounts() {
+    for (SheetFactory factory : FACTORIES) {
+      BetterSpreadSheet sheet = factory.create();
+      sheet.setInBulk(0, 0, 300, 4, 1.0);
+      sheet.set(1000, 7, 2.0);
+      sheet.moveRange(0, 0, 10, 1, 0, 10);
+      assertEquals(1201, sheet.getFootprint().getCells());
+    }
+  }
+
+  @Test
+  public void testColumnarBulkRegions() {
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet();
+    sheet.setInBulk(0, 0, ColumnarSpreadSheet.BLOCK_SIZE * 4, 2, 3.0);
+    sheet.set(1, 0, 4.0);
+    sheet.compact();
+    Footprint footprint = sheet.getFootprint();
+    assertEquals(7, footprint.getBulkRegions());
+    assertEquals(1.0, footprint.getLoadFactor(), 0.0);
+  }
+
+  @Test
+  public void testStatsInstruction() {
+    StringBuilder log = new StringBuilder();
+    StringWriter writer = new StringWriter();
+    SpreadSheetController controller = new SpreadSheetController(new MockBetterSpreadSheet(log),
+        new StringReader("stats\n"), writer, true);
+    controller.goExecute();
+    assertEquals("getFootprint() successfully called", log.toString());
+    assertEquals("Cells: 3, Bytes: 100 (keys 20, values 30, structure 50), Load factor: 0.50, "
+        + "Bulk regions: 1\n", writer.toString());
+  }
+
+  @Test
+  public void testDenseBlocksMatchHeap() {
+    for (int rows : new int[]{2000, 20000, 100000}) {
+      for (SheetFactory factory : FACTORIES) {
+        checkAgainstHeap(factory, rows, 1);
+      }
+    }
+  }
+
+  @Test
+  public void testScatteredCellsMatchHeap() {
+    for (int rows : new int[]{20000, 200000}) {
+      for (SheetFactory factory : FACTORIES) {
+        checkAgainstHeap(factory, rows, 7);
+      }
+    }
+  }
+
+  @Test
+  public void testRemovalsMatchHeap() {
+    for (SheetFactory factory : FACTORIES) {
+      long before = usedHeap();
+      BetterSpreadSheet sheet = factory.create();
+      int rows = 200000;
+      for (int r = 0; r < rows; r++) {
+        sheet.set(r, 0, r);
+      }
+      //each move drops the lower half of the column onto the upper half
+      for (int n = rows; n > 100; n /= 2) {
+        sheet.moveRange(n / 2, 0, n, 1, 0, 0);
+      }
+      Footprint footprint = assertMatchesHeap(sheet, before, "after removals");
+      assertEquals(100, footprint.getCells());
+    }
+
+    long before = usedHeap();
+    BetterSpreadSheetImpl sheet = new BetterSpreadSheetImpl();
+    sheet.setInBulk(0, 0, 100000, 2, 1.0);
+    sheet.moveRange(0, 0, 100000, 2, 0, 3);
+    for (int r = 0; r < 99990; r++) {
+      sheet.deleteRow(0);
+    }
+    Footprint footprint = assertMatchesHeap(sheet, before, "after deleting rows");
+    assertEquals(20, footprint.getCells());
+    //the table sized for 200000 entries is still there
+    assertTrue(footprint.getLoadFactor() < 0.001);
+  }
+
+  @Test
+  public void testColumnarBulkAssignMatchesHeap() {
+    long before = usedHeap();
+    ColumnarSpreadSheet sheet = new ColumnarSpreadSheet();
+    sheet.setInBulk(0, 0, 4_000_000, 4, 1.0);
+    sheet.compact();
+    Footprint footprint = assertMatchesHeap(sheet, before, "after bulk assign");
+    assertEquals(16_000_000, footprint.getCells());
+  }
+
+  //fills every stride-th row of three columns with slowly varying values, and compares the
+  //estimated footprint with the measured growth of the heap
+  private static void checkAgainstHeap(SheetFactory factory, int rows, int stride) {
+    long before = usedHeap();
+    BetterSpreadSheet sheet = factory.create();
+    for (int r = 0; r < rows; r += stride) {
+      for (int c = 0; c < 3; c++) {
+        sheet.set(r, c, (r / 100) * 0.5 + c);
+      }
+    }
+    if (sheet instanceof ColumnarSpreadSheet) {
+      ((ColumnarSpreadSheet) sheet).compact();
+    }
+    assertMatchesHeap(sheet, before, "rows " + rows + " stride " + stride);
+    assertTrue(sheet.getHeight() > 0);
+  }
+
+  //compares the estimated footprint of a sheet with the growth of the heap since before
+  private static Footprint assertMatchesHeap(BetterSpreadSheet sheet, long before, String label) {
+    long measured = usedHeap() - before;
+    Footprint footprint = sheet.getFootprint();
+    long estimated = footprint.getTotalBytes();
+    String message = sheet.getClass().getSimpleName() + " " + label + ": estimated " + estimated
+        + " measured " + measured;
+    System.out.println(message);
+    //small sheets are below the resolution of the heap measurement
+    if (measured > 64 * 1024) {
+      assertEquals(message, measured, estimated, measured * TOLERANCE);
+    }
+    return footprint;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+}
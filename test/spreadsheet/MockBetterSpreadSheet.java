@@ -107,4 +107,94 @@ public class MockBetterSpreadSheet implements BetterSpreadSheet {
       throws IllegalArgumentException {
     log.append("Successfully bulk assigned values");
   }
+
+  /**
+   * copy the values of a block of cells to another block of the same size.
+   *
+   * @param sX the starting x-coordinate of the source block (must be non-negative).
+   * @param sY the starting y-coordinate of the source block (must be non-negative).
+   * @param eX the ending x-coordinate of the source block.
+   * @param eY the ending y-coordinate of the source block.
+   * @param dX the starting x-coordinate of the destination block (must be non-negative).
+   * @param dY the starting y-coordinate of the destination block (must be non-negative).
+   * @throws IllegalArgumentException if any coordinate is negative
+   */
+  @Override
+  public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    log.append("copyRange successfully called with source: ").append(sX).append(",").append(sY)
+        .append(",").append(eX).append(",").append(eY).append(" destination: ").append(dX)
+        .append(",").append(dY);
+  }
+
+  /**
+   * move the values of a block of cells to another block of the same size.
+   *
+   * @param sX the starting x-coordinate of the source block (must be non-negative).
+   * @param sY the starting y-coordinate of the source block (must be non-negative).
+   * @param eX the ending x-coordinate of the source block.
+   * @param eY the ending y-coordinate of the source block.
+   * @param dX the starting x-coordinate of the destination block (must be non-negative).
+   * @param dY the starting y-coordinate of the destination block (must be non-negative).
+   * @throws IllegalArgumentException if any coordinate is negative
+   */
+  @Override
+  public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY)
+      throws IllegalArgumentException {
+    log.append("moveRange successfully called with source: ").append(sX).append(",").append(sY)
+        .append(",").append(eX).append(",").append(eY).append(" destination: ").append(dX)
+        .append(",").append(dY);
+  }
+
+  /**
+   * sort the rows of a block of cells by the values in one of its columns.
+   *
+   * @param sX        the starting x-coordinate of the block.
+   * @param sY        the starting y-coordinate of the block.
+   * @param eX        the ending x-coordinate of the block.
+   * @param eY        the ending y-coordinate of the block.
+   * @param keyCol    the column to sort by.
+   * @param ascending true to sort in ascending order, false for descending order.
+   */
+  @Override
+  public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending)
+      throws IllegalArgumentException {
+    log.append("sortRange successfully called with range: ").append(sX).append(",").append(sY)
+        .append(",").append(eX).append(",").append(eY).append(" key: ").append(keyCol)
+        .append(" ascending: ").append(ascending);
+  }
+
+  /**
+   * find the rows holding the k largest or smallest values in part of a column.
+   *
+   * @param sX      the starting row.
+   * @param eX      the ending row.
+   * @param col     the column to rank the rows by.
+   * @param k       the number of rows to return.
+   * @param largest true for the rows with the largest values, false for the smallest.
+   * @return rows sX, sX + 1, ... up to k of them, always
+   */
+  @Override
+  public int[] topK(int sX, int eX, int col, int k, boolean largest)
+      throws IllegalArgumentException {
+    log.append("topK successfully called with rows: ").append(sX).append(",").append(eX)
+        .append(" column: ").append(col).append(" k: ").append(k).append(" largest: ")
+        .append(largest);
+    int[] result = new int[Math.max(0, Math.min(k, eX - sX))];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = sX + i;
+    }
+    return result;
+  }
+
+  /**
+   * estimate the memory used by this spreadsheet.
+   *
+   * @return a footprint of 3 cells using 100 bytes, always
+   */
+  @Override
+  public Footprint getFootprint() {
+    log.append("getFootprint() successfully called");
+    return new Footprint(3, 20, 30, 50, 0.5, 1);
+  }
 }
@@ -0,0 +1,308 @@
+package spreadsheet;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Replays command scripts, such as the ones made by {@link WorkloadGenerator}, through
+ * SpreadSheetController against any BetterSpreadSheet. A replay reports the throughput of the
+ * whole run, including parsing, and the latency percentiles of the individual spreadsheet calls.
+ * Final sheet contents of several implementations can be cross-checked against each other.
+ */
+public class ReplayHarness {
+
+  /**
+   * Replay a script in the controller's script mode.
+   *
+   * @param script the instructions to run
+   * @param sheet  the sheet to run them against
+   * @return the measurements of the run
+   */
+  public static Report replay(String script, BetterSpreadSheet sheet) {
+    TimedSpreadSheet timed = new TimedSpreadSheet(sheet);
+    HashingAppendable output = new HashingAppendable();
+    SpreadSheetController controller =
+        new SpreadSheetController(timed, new StringReader(script), output, true);
+    long start = System.nanoTime();
+    controller.goExecute();
+    long elapsed = System.nanoTime() - start;
+    return new Report(sheet.getClass().getSimpleName(), timed.latencies(), elapsed,
+        output.hash);
+  }
+
+  /**
+   * Compare the contents of two sheets.
+   *
+   * @param expected the reference sheet
+   * @param actual   the sheet to check
+   * @return null if both sheets have the same size and cells, or a description of the first
+   *         difference otherwise
+   */
+  public static String compare(BetterSpreadSheet expected, BetterSpreadSheet actual) {
+    if ((expected.getWidth() != actual.getWidth())
+        || (expected.getHeight() != actual.getHeight())) {
+      return "size " + expected.getHeight() + "x" + expected.getWidth() + " != "
+          + actual.getHeight() + "x" + actual.getWidth();
+    }
+    for (int r = 0; r < expected.getHeight(); r++) {
+      for (int c = 0; c < expected.getWidth(); c++) {
+        if ((expected.isEmpty(r, c) != actual.isEmpty(r, c))
+            || (Double.compare(expected.get(r, c), actual.get(r, c)) != 0)) {
+          return "cell (" + r + "," + c + ") " + expected.get(r, c) + " != " + actual.get(r, c);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Replay generated workloads against every implementation and cross-check the results.
+   * Arguments: [operations] [seed] [rows] [cols].
+   *
+   * @param args the optional arguments
+   */
+  public static void main(String[] args) {
+    int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    long seed = (args.length > 1) ? Long.parseLong(args[1]) : 42;
+    int rows = (args.length > 2) ? Integer.parseInt(args[2]) : 100000;
+    int cols = (args.length > 3) ? Integer.parseInt(args[3]) : 16;
+
+    for (WorkloadGenerator.Locality locality : WorkloadGenerator.Locality.values()) {
+      String script = new WorkloadGenerator(seed, rows, cols, 60, 35, 5, 0.1, locality)
+          .generate(operations);
+      System.out.println("Workload " + locality + ": " + operations + " instructions");
+      BetterSpreadSheet[] sheets = {new BetterSpreadSheetImpl(), new BetterSparseSpreadSheet(),
+          new ColumnarSpreadSheet()};
+      Report[] reports = new Report[sheets.length];
+      for (int i = 0; i < sheets.length; i++) {
+        reports[i] = replay(script, sheets[i]);
+        System.out.println("  " + reports[i]);
+      }
+      for (int i = 1; i < sheets.length; i++) {
+        String difference = compare(sheets[0], sheets[i]);
+        if ((difference != null) || (reports[i].getOutputHash() != reports[0].getOutputHash())) {
+          System.out.println("  MISMATCH " + reports[i].getName() + ": "
+              + ((difference == null) ? "printed values differ" : difference));
+        }
+      }
+    }
+  }
+
+  /**
+   * The measurements of one replay.
+   */
+  public static final class Report {
+
+    private final String name;
+    private final long[] latencies;
+    private final long elapsed;
+    private final long outputHash;
+
+    private Report(String name, long[] latencies, long elapsed, long outputHash) {
+      this.name = name;
+      this.latencies = latencies;
+      this.elapsed = elapsed;
+      this.outputHash = outputHash;
+      Arrays.sort(this.latencies);
+    }
+
+    /**
+     * Return the name of the sheet implementation.
+     * @return the simple class name of the sheet
+     */
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Return the number of spreadsheet calls made by the controller.
+     * @return the number of calls
+     */
+    public int getOperations() {
+      return this.latencies.length;
+    }
+
+    /**
+     * Return the spreadsheet calls completed per second of the whole run.
+     * @return the throughput of the run
+     */
+    public double getOpsPerSecond() {
+      return this.latencies.length / (this.elapsed / 1e9);
+    }
+
+    /**
+     * Return a percentile of the latencies of the spreadsheet calls.
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in nanoseconds, or 0 if there were no calls
+     */
+    public long getLatency(double percentile) {
+      if (this.latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * this.latencies.length) - 1;
+      return this.latencies[Math.max(0, Math.min(this.latencies.length - 1, index))];
+    }
+
+    /**
+     * Return a hash of everything the controller wrote, for comparing runs.
+     * @return the hash of the output
+     */
+    public long getOutputHash() {
+      return this.outputHash;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "%-24s %10.0f ops/s  p50 %7d ns  p90 %7d ns  p99 %8d ns  max %9d ns", name,
+          getOpsPerSecond(), getLatency(50), getLatency(90), getLatency(99), getLatency(100));
+    }
+  }
+
+  /**
+   * Hashes everything appended to it instead of storing it.
+   */
+  private static class HashingAppendable implements Appendable {
+
+    private long hash = 17;
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        append(csq.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      this.hash = 31 * this.hash + c;
+      return this;
+    }
+  }
+
+  /**
+   * Forwards every call to another sheet and records how long each one took.
+   */
+  private static class TimedSpreadSheet implements BetterSpreadSheet {
+
+    private final BetterSpreadSheet delegate;
+    private long[] latencies;
+    private int count;
+
+    private TimedSpreadSheet(BetterSpreadSheet delegate) {
+      this.delegate = delegate;
+      this.latencies = new long[1024];
+      this.count = 0;
+    }
+
+    private long[] latencies() {
+      return Arrays.copyOf(this.latencies, this.count);
+    }
+
+    private void record(long start) {
+      long elapsed = System.nanoTime() - start;
+      if (this.count == this.latencies.length) {
+        this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+      }
+      this.latencies[this.count++] = elapsed;
+    }
+
+    @Override
+    public void setInBulk(int sX, int sY, int eX, int eY, double value) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.setInBulk(sX, sY, eX, eY, value);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public void copyRange(int sX, int sY, int eX, int eY, int dX, int dY) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.copyRange(sX, sY, eX, eY, dX, dY);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public void moveRange(int sX, int sY, int eX, int eY, int dX, int dY) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.moveRange(sX, sY, eX, eY, dX, dY);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public void sortRange(int sX, int sY, int eX, int eY, int keyCol, boolean ascending) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.sortRange(sX, sY, eX, eY, keyCol, ascending);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public int[] topK(int sX, int eX, int col, int k, boolean largest) {
+      long start = System.nanoTime();
+      try {
+        return this.delegate.topK(sX, eX, col, k, largest);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public Footprint getFootprint() {
+      return this.delegate.getFootprint();
+    }
+
+    @Override
+    public double get(int row, int col) {
+      long start = System.nanoTime();
+      try {
+        return this.delegate.get(row, col);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+      long start = System.nanoTime();
+      try {
+        this.delegate.set(row, col, value);
+      } finally {
+        record(start);
+      }
+    }
+
+    @Override
+    public boolean isEmpty(int row, int col) {
+      return this.delegate.isEmpty(row, col);
+    }
+
+    @Override
+    public int getWidth() {
+      return this.delegate.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+      return this.delegate.getHeight();
+    }
+  }
+}
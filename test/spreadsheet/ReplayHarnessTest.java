@@ -0,0 +1,57 @@
+package spreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for WorkloadGenerator and ReplayHarness.
+ */
+public class ReplayHarnessTest {
+
+  @Test
+  public void testRowNamesMatchController() {
+    assertEquals("A", WorkloadGenerator.rowName(0));
+    assertEquals("Z", WorkloadGenerator.rowName(25));
+    assertEquals("AA", WorkloadGenerator.rowName(26));
+    assertEquals("AD", WorkloadGenerator.rowName(29));
+    assertEquals("ZZ", WorkloadGenerator.rowName(701));
+    assertEquals("AAA", WorkloadGenerator.rowName(702));
+  }
+
+  @Test
+  public void testGenerationIsReproducible() {
+    WorkloadGenerator generator = new WorkloadGenerator(5, 500, 10, 50, 40, 10, 0.5,
+        WorkloadGenerator.Locality.HOTSPOT);
+    String script = generator.generate(300);
+    assertEquals(script, generator.generate(300));
+    assertEquals(301, script.split("\n").length);
+    assertTrue(script.endsWith("quit\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDensity() {
+    new WorkloadGenerator(1, 10, 10, 1, 1, 1, 0, WorkloadGenerator.Locality.UNIFORM);
+  }
+
+  @Test
+  public void testImplementationsAgree() {
+    for (WorkloadGenerator.Locality locality : WorkloadGenerator.Locality.values()) {
+      String script = new WorkloadGenerator(11, 2000, 8, 60, 30, 10, 0.25, locality)
+          .generate(5000);
+      BetterSpreadSheet reference = new BetterSpreadSheetImpl();
+      ReplayHarness.Report expected = ReplayHarness.replay(script, reference);
+      BetterSpreadSheet[] others = {new BetterSparseSpreadSheet(), new ColumnarSpreadSheet(4)};
+      for (BetterSpreadSheet other : others) {
+        ReplayHarness.Report actual = ReplayHarness.replay(script, other);
+        assertEquals(null, ReplayHarness.compare(reference, other));
+        assertEquals(expected.getOutputHash(), actual.getOutputHash());
+        assertEquals(expected.getOperations(), actual.getOperations());
+      }
+      assertEquals(5000, expected.getOperations());
+      assertTrue(expected.getLatency(50) <= expected.getLatency(99));
+      assertTrue(expected.getOpsPerSecond() > 0);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.List;
 import org.junit.Test;
 
 /**
@@ -36,6 +37,11 @@ public class SpreadSheetControllerTest {
             + "assign-value row-num col-num value (set a cell to a value)\n"
             + "print-value row-num col-num (print the value at a given cell)\n"
             + "bulk-assign row-num col-num (set values to given cell range)\n"
+            + "copy-range row-num col-num row-num col-num row-num col-num "
+            + "(copy cell range to given cell)\n"
+            + "move-range row-num col-num row-num col-num row-num col-num "
+            + "(move cell range to given cell)\n"
+            + "stats (print memory usage of the sheet)\n"
             + "menu (Print supported instruction list)\n"
             + "q or quit (quit the program) \n"
             + "Type instruction: Welcome to the spreadsheet program!\n"
@@ -43,6 +49,11 @@ public class SpreadSheetControllerTest {
             + "assign-value row-num col-num value (set a cell to a value)\n"
             + "print-value row-num col-num (print the value at a given cell)\n"
             + "bulk-assign row-num col-num (set values to given cell range)\n"
+            + "copy-range row-num col-num row-num col-num row-num col-num "
+            + "(copy cell range to given cell)\n"
+            + "move-range row-num col-num row-num col-num row-num col-num "
+            + "(move cell range to given cell)\n"
+            + "stats (print memory usage of the sheet)\n"
             + "menu (Print supported instruction list)\n"
             + "q or quit (quit the program) \n"
             + "Type instruction: Thank you for using this program!",
@@ -56,13 +67,18 @@ public class SpreadSheetControllerTest {
     String[] lines = writer.toString().split(System.lineSeparator());
     String output =
         lines[0] + "\n" + lines[1] + "\n" + lines[2] + "\n" + lines[3] + "\n" + lines[4] + "\n"
-            + lines[5] + "\n" + lines[6];
+            + lines[5] + "\n" + lines[6] + "\n" + lines[7] + "\n" + lines[8] + "\n" + lines[9];
     System.out.println(output);
     assertEquals("Welcome to the spreadsheet program!\n"
         + "Supported user instructions are: \n"
         + "assign-value row-num col-num value (set a cell to a value)\n"
         + "print-value row-num col-num (print the value at a given cell)\n"
         + "bulk-assign row-num col-num (set values to given cell range)\n"
+        + "copy-range row-num col-num row-num col-num row-num col-num "
+        + "(copy cell range to given cell)\n"
+        + "move-range row-num col-num row-num col-num row-num col-num "
+        + "(move cell range to given cell)\n"
+        + "stats (print memory usage of the sheet)\n"
         + "menu (Print supported instruction list)\n"
         + "q or quit (quit the program) ", output);
   }
@@ -78,6 +94,11 @@ public class SpreadSheetControllerTest {
         + "assign-value row-num col-num value (set a cell to a value)\n"
         + "print-value row-num col-num (print the value at a given cell)\n"
         + "bulk-assign row-num col-num (set values to given cell range)\n"
+        + "copy-range row-num col-num row-num col-num row-num col-num "
+        + "(copy cell range to given cell)\n"
+        + "move-range row-num col-num row-num col-num row-num col-num "
+        + "(move cell range to given cell)\n"
+        + "stats (print memory usage of the sheet)\n"
         + "menu (Print supported instruction list)\n"
         + "q or quit (quit the program) ";
   }
@@ -140,4 +161,63 @@ public class SpreadSheetControllerTest {
         + "Type instruction: Thank you for using this program!", writer.toString());
   }
 
+  @Test
+  public void testChangeLogRecordsScript() {
+    ObservableSpreadSheet model = new ObservableSpreadSheet(new BetterSpreadSheetImpl(), 4);
+    ChangeLog.Cursor cursor = model.getChangeLog().subscribe();
+    Readable rd = new StringReader("assign-value A 1 5\nbulk-assign A 1 C 3 7\n"
+        + "assign-value B 2 9\nprint-value B 2\nquit\n");
+    SpreadSheetController controller = new SpreadSheetController(model, rd, writer);
+    controller.goExecute();
+    List<SheetChange> changes = cursor.poll(10);
+    assertEquals(3, changes.size());
+    assertEquals("#0 CELL (0,0)=5.0", changes.get(0).toString());
+    assertEquals("#1 RANGE (0,0)-(2,2)=7.0", changes.get(1).toString());
+    assertEquals("#2 CELL (1,1)=9.0", changes.get(2).toString());
+    assertEquals(3, cursor.getPosition());
+
+    ChangeLog.Cursor resumed = model.getChangeLog().subscribe(0);
+    List<SheetChange> coalesced = resumed.pollCoalesced(10);
+    assertEquals(2, coalesced.size());
+    assertEquals(1, coalesced.get(0).getSequence());
+    assertEquals(2, coalesced.get(1).getSequence());
+  }
+
+  @Test
+  public void testCopyRange() {
+    StringBuilder log = new StringBuilder();
+    BetterSpreadSheet model = new MockBetterSpreadSheet(log);
+    Readable rd = new StringReader("copy-range A 1 C 4 B 2\nquit\n");
+    SpreadSheetController controller = new SpreadSheetController(model, rd, writer);
+    controller.goExecute();
+    assertEquals("copyRange successfully called with source: 0,0,2,3 destination: 1,1",
+        log.toString());
+    assertEquals(welcomeHelper() + "\n"
+        + "Type instruction: Copying cells (0,0,2,3) to (1,1)\n"
+        + "Type instruction: Thank you for using this program!", writer.toString());
+  }
+
+  @Test
+  public void testMoveRange() {
+    StringBuilder log = new StringBuilder();
+    BetterSpreadSheet model = new MockBetterSpreadSheet(log);
+    Readable rd = new StringReader("move-range A 1 C 4 B 2\nquit\n");
+    SpreadSheetController controller = new SpreadSheetController(model, rd, writer);
+    controller.goExecute();
+    assertEquals("moveRange successfully called with source: 0,0,2,3 destination: 1,1",
+        log.toString());
+  }
+
+  @Test
+  public void testScriptMode() {
+    BetterSpreadSheet model = new BetterSpreadSheetImpl();
+    Readable rd = new StringReader("  assign-value B 2 4.5\n\tprint-value B 2\n"
+        + "bogus\nprint-value A 1");
+    SpreadSheetController controller = new SpreadSheetController(model, rd, writer, true);
+    controller.goExecute();
+    assertEquals("Value: 4.5\n"
+        + "Undefined instruction: bogus\n"
+        + "Value: 0.0\n", writer.toString());
+  }
+
 }
\ No newline at end of file
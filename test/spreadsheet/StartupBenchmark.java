@@ -0,0 +1,84 @@
+package spreadsheet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long SpreadSheetProgram takes from launch until the output of the first command of
+ * a script is visible, with and without the AppCDS archive built by scripts/build-cds.sh.
+ * Every measurement launches a fresh JVM. Run it after building the archive:
+ * java -cp build/classes:&lt;test classes&gt; spreadsheet.StartupBenchmark build/spreadsheet.jar
+ * build/spreadsheet.jsa [runs]
+ */
+public class StartupBenchmark {
+
+  /**
+   * Program start.
+   * @param args the jar, the archive and optionally the number of runs per configuration
+   * @throws IOException if the script cannot be written or a JVM cannot be started
+   * @throws InterruptedException if interrupted while waiting for a JVM to exit
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 2) {
+      System.err.println("Usage: StartupBenchmark <jar> <archive> [runs]");
+      System.exit(1);
+    }
+    int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+    File script = File.createTempFile("startup", ".txt");
+    script.deleteOnExit();
+    try (Writer out = new FileWriter(script)) {
+      out.write("print-value A 1\nquit\n");
+    }
+
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    String[][] configurations = {
+        {java, "-Xshare:off", "-jar", args[0], script.getPath()},
+        {java, "-jar", args[0], script.getPath()},
+        {java, "-XX:SharedArchiveFile=" + args[1], "-jar", args[0], script.getPath()},
+        {java, "-XX:SharedArchiveFile=" + args[1], "-XX:TieredStopAtLevel=1", "-jar", args[0],
+            script.getPath()}
+    };
+    String[] names = {"no CDS", "default CDS", "AppCDS", "AppCDS + C1 only"};
+
+    for (int i = 0; i < configurations.length; i++) {
+      timeToFirstCommand(configurations[i]); //warm up the file system cache
+      long[] times = new long[runs];
+      for (int run = 0; run < runs; run++) {
+        times[run] = timeToFirstCommand(configurations[i]);
+      }
+      Arrays.sort(times);
+      System.out.printf("%-18s min %6.1f ms  median %6.1f ms  max %6.1f ms%n", names[i],
+          times[0] / 1e6, times[runs / 2] / 1e6, times[runs - 1] / 1e6);
+    }
+  }
+
+  //launches the command and returns the nanoseconds until its first line of output
+  private static long timeToFirstCommand(String[] command)
+      throws IOException, InterruptedException {
+    List<String> arguments = new ArrayList<String>(Arrays.asList(command));
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(arguments).redirectErrorStream(true).start();
+    long elapsed;
+    try (BufferedReader output =
+        new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      String line = output.readLine();
+      elapsed = System.nanoTime() - start;
+      if (line == null) {
+        throw new IOException("No output from " + arguments);
+      }
+      while (output.readLine() != null) {
+        //drain the rest of the output
+      }
+    }
+    process.waitFor();
+    return elapsed;
+  }
+}
@@ -0,0 +1,183 @@
+package spreadsheet;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generates reproducible command scripts for SpreadSheetController. A script is a mix of
+ * assign-value, print-value and bulk-assign instructions in configurable proportions, over cells
+ * chosen according to a density and a locality pattern, followed by quit. The same seed and
+ * settings always produce the same script.
+ */
+public class WorkloadGenerator {
+
+  /**
+   * How consecutive instructions choose their cells.
+   */
+  public enum Locality {
+    //every cell is chosen uniformly at random
+    UNIFORM,
+    //cells are visited row by row, wrapping around at the end of the sheet
+    SEQUENTIAL,
+    //most cells fall in a small window that jumps to a new place from time to time
+    HOTSPOT
+  }
+
+  private static final int HOTSPOT_ROWS = 32;
+  private static final int HOTSPOT_COLS = 4;
+  private static final int MAX_BULK_ROWS = 64;
+  private static final int MAX_BULK_COLS = 4;
+
+  private final long seed;
+  private final int rows;
+  private final int cols;
+  private final int assignWeight;
+  private final int printWeight;
+  private final int bulkWeight;
+  private final int stride;
+  private final Locality locality;
+
+  /**
+   * Constructs a generator for scripts over a sheet of the given size.
+   *
+   * @param seed         the seed of the random choices
+   * @param rows         the number of rows instructions may touch
+   * @param cols         the number of columns instructions may touch
+   * @param assignWeight the relative frequency of assign-value instructions
+   * @param printWeight  the relative frequency of print-value instructions
+   * @param bulkWeight   the relative frequency of bulk-assign instructions
+   * @param density      the fraction of rows that single-cell instructions touch, between 0
+   *                     (exclusive) and 1; touched rows are spread evenly over the sheet
+   * @param locality     how consecutive instructions choose their cells
+   * @throws IllegalArgumentException if the sheet is empty, a weight is negative, all weights are
+   *                                  0, or the density is out of range
+   */
+  public WorkloadGenerator(long seed, int rows, int cols, int assignWeight, int printWeight,
+      int bulkWeight, double density, Locality locality) throws IllegalArgumentException {
+    if ((rows <= 0) || (cols <= 0)) {
+      throw new IllegalArgumentException("Sheet must have at least one row and column");
+    }
+    if ((assignWeight < 0) || (printWeight < 0) || (bulkWeight < 0)
+        || (assignWeight + printWeight + bulkWeight == 0)) {
+      throw new IllegalArgumentException("Weights must be non-negative and not all 0");
+    }
+    if (!(density > 0) || (density > 1)) {
+      throw new IllegalArgumentException("Density must be in (0, 1]");
+    }
+    if (locality == null) {
+      throw new IllegalArgumentException("Locality is null");
+    }
+    this.seed = seed;
+    this.rows = rows;
+    this.cols = cols;
+    this.assignWeight = assignWeight;
+    this.printWeight = printWeight;
+    this.bulkWeight = bulkWeight;
+    this.stride = (int) Math.max(1, Math.round(1 / density));
+    this.locality = locality;
+  }
+
+  /**
+   * Generate a script of the given number of instructions, followed by quit.
+   *
+   * @param operations the number of instructions
+   * @return the script, one instruction per line
+   */
+  public String generate(int operations) {
+    StringBuilder script = new StringBuilder();
+    try {
+      generate(operations, script);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+    return script.toString();
+  }
+
+  /**
+   * Write a script of the given number of instructions, followed by quit.
+   *
+   * @param operations the number of instructions
+   * @param out        where to write the script, one instruction per line
+   * @throws IOException if writing fails
+   */
+  public void generate(int operations, Appendable out) throws IOException {
+    Random random = new Random(this.seed);
+    int total = this.assignWeight + this.printWeight + this.bulkWeight;
+    int[] cell = new int[2];
+    int[] hotspot = {0, 0};
+    long step = 0;
+    for (int i = 0; i < operations; i++) {
+      int pick = random.nextInt(total);
+      if (pick < this.bulkWeight) {
+        //bulk ranges are placed anywhere, independent of the density
+        int row = random.nextInt(this.rows);
+        int col = random.nextInt(this.cols);
+        int endRow = Math.min(this.rows, row + 1 + random.nextInt(MAX_BULK_ROWS));
+        int endCol = Math.min(this.cols, col + 1 + random.nextInt(MAX_BULK_COLS));
+        out.append("bulk-assign ").append(rowName(row)).append(' ')
+            .append(String.valueOf(col + 1)).append(' ').append(rowName(endRow)).append(' ')
+            .append(String.valueOf(endCol + 1)).append(' ').append(value(random)).append('\n');
+        continue;
+      }
+      nextCell(random, step++, hotspot, cell);
+      if (pick < this.bulkWeight + this.assignWeight) {
+        out.append("assign-value ").append(rowName(cell[0])).append(' ')
+            .append(String.valueOf(cell[1] + 1)).append(' ').append(value(random)).append('\n');
+      } else {
+        out.append("print-value ").append(rowName(cell[0])).append(' ')
+            .append(String.valueOf(cell[1] + 1)).append('\n');
+      }
+    }
+    out.append("quit\n");
+  }
+
+  //chooses the next cell for a single-cell instruction
+  private void nextCell(Random random, long step, int[] hotspot, int[] cell) {
+    int slots = (this.rows + this.stride - 1) / this.stride;
+    switch (this.locality) {
+      case SEQUENTIAL:
+        cell[0] = (int) ((step / this.cols) % slots) * this.stride;
+        cell[1] = (int) (step % this.cols);
+        break;
+      case HOTSPOT:
+        if (random.nextInt(100) < 2) {
+          hotspot[0] = random.nextInt(slots);
+          hotspot[1] = random.nextInt(this.cols);
+        }
+        if (random.nextInt(10) == 0) {
+          cell[0] = random.nextInt(slots) * this.stride;
+          cell[1] = random.nextInt(this.cols);
+        } else {
+          cell[0] = Math.min(slots - 1, hotspot[0] + random.nextInt(HOTSPOT_ROWS)) * this.stride;
+          cell[1] = Math.min(this.cols - 1, hotspot[1] + random.nextInt(HOTSPOT_COLS));
+        }
+        break;
+      default:
+        cell[0] = random.nextInt(slots) * this.stride;
+        cell[1] = random.nextInt(this.cols);
+    }
+  }
+
+  //values are multiples of 0.25, so their decimal form converts back to the same double
+  private static String value(Random random) {
+    return String.valueOf((random.nextInt(8000) - 4000) / 4.0);
+  }
+
+  /**
+   * Return the row letters of a row number, the inverse of how the controller reads rows: 0 is A,
+   * 25 is Z, 26 is AA and so on.
+   *
+   * @param row the row number, starting with 0
+   * @return the row letters
+   */
+  public static String rowName(int row) {
+    StringBuilder name = new StringBuilder();
+    int n = row + 1;
+    while (n > 0) {
+      n--;
+      name.append((char) ('A' + n % 26));
+      n /= 26;
+    }
+    return name.reverse().toString();
+  }
+}